@@ -0,0 +1,30 @@
+package hello.springtx;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * DB 없이 트랜잭션 경계 처리 비용만 재기 위한 트랜잭션 매니저. 아무것도 하지 않는다.
+ */
+public class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+    private static final Object TRANSACTION = new Object();
+
+    @Override
+    protected Object doGetTransaction() {
+        return TRANSACTION;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+    }
+}
@@ -0,0 +1,68 @@
+package hello.springtx.groupcommit;
+
+import hello.springtx.SpringtxApplication;
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 파일 H2(durable 프로파일)에서 동시 주문 커밋 처리량. 커밋마다 동기화 vs 그룹 커밋.
+ * ./gradlew jmh -Pjmh.includes=GroupCommitBenchmark
+ * 결과의 ops/s 가 초당 커밋 수다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class GroupCommitBenchmark {
+
+    @Param({"immediate", "group"})
+    public String mode;
+
+    ConfigurableApplicationContext context;
+    OrderService orderService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringtxApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("durable")
+                .run("--springtx.durable.commit=" + mode,
+                        "--spring.datasource.url=jdbc:h2:file:./build/jmh/h2/groupcommit-" + mode,
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+                        "--logging.level.org.hibernate.resource.transaction=WARN",
+                        "--logging.level.org.hibernate.sql=WARN");
+        orderService = context.getBean(OrderService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void order() throws NotEnoughMoneyException {
+        Order order = new Order();
+        order.setUserName("정상");
+        orderService.order(order);
+    }
+}
@@ -0,0 +1,121 @@
+package hello.springtx.order;
+
+import hello.springtx.SpringtxApplication;
+import hello.springtx.programmatic.TxDefinition;
+import hello.springtx.programmatic.TxExecutor;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대기 주문 rows 건을 완료로 정산하는 시간 : 엔티티를 한 건씩 바꾸기 vs 벌크 UPDATE.
+ * 매 반복마다 모든 주문을 대기 상태로 되돌리고 한 번만 실행한다.
+ * ./gradlew jmh -Pjmh.includes=OrderStatusTransitionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderStatusTransitionBenchmark {
+
+    private static final String PENDING = "대기";
+    private static final String PAID = "완료";
+    private static final int PAGE_SIZE = 1_000;
+    private static final String SELECT_PENDING = "select o from Order o where o.payStatus = :payStatus and o.id > :after order by o.id";
+
+    @Param({"100000"})
+    public int rows;
+
+    ConfigurableApplicationContext context;
+    JdbcTemplate jdbcTemplate;
+    EntityManager em;
+    TxExecutor txExecutor;
+    OrderChangeSequencer orderChangeSequencer;
+    OrderStatusTransitions orderStatusTransitions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringtxApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+                        "--logging.level.org.hibernate.resource.transaction=WARN",
+                        "--logging.level.org.hibernate.sql=WARN",
+                        "--logging.level.hello.springtx.order=WARN");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        em = context.getBean(EntityManager.class);
+        txExecutor = context.getBean(TxExecutor.class);
+        orderChangeSequencer = context.getBean(OrderChangeSequencer.class);
+        orderStatusTransitions = context.getBean(OrderStatusTransitions.class);
+
+        List<Object[]> batch = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            batch.add(new Object[]{id, "정상", PENDING, 1_000L});
+        }
+        jdbcTemplate.batchUpdate("insert into orders (id, user_name, pay_status, amount) values (?, ?, ?, ?)", batch);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetToPending() {
+        jdbcTemplate.update("update orders set pay_status = ?", PENDING);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 기존 방식 : 페이지마다 엔티티를 읽어 setPayStatus. 커밋 때 더티 체킹으로 건마다 UPDATE.
+    @Benchmark
+    public long entityByEntity() {
+        long total = 0;
+        long after = 0;
+        List<Order> page;
+        while (!(page = txExecutor.execute(TxDefinition.REQUIRES_NEW, after, this::settlePage)).isEmpty()) {
+            total += page.size();
+            after = page.get(page.size() - 1).getId();
+        }
+        return total;
+    }
+
+    // 같은 페이지 크기의 keyset 벌크 UPDATE. 페이지마다 커밋.
+    @Benchmark
+    public long bulkKeyset() {
+        return orderStatusTransitions.transitionAll(PENDING, PAID, PAGE_SIZE);
+    }
+
+    // 전체 id 범위를 UPDATE 한 번으로.
+    @Benchmark
+    public int bulkRange() {
+        return orderStatusTransitions.transition(PENDING, PAID, 1, rows);
+    }
+
+    private List<Order> settlePage(long after) {
+        List<Order> orders = em.createQuery(SELECT_PENDING, Order.class)
+                .setParameter("payStatus", PENDING)
+                .setParameter("after", after)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+        for (Order order : orders) {
+            order.setPayStatus(PAID);
+            orderChangeSequencer.track(order);
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,95 @@
+package hello.springtx.programmatic;
+
+import hello.springtx.NoOpTransactionManager;
+import hello.springtx.deadline.DeadlineMetrics;
+import hello.springtx.deadline.DeadlineTransactionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 트랜잭션 한 번당 할당량 비교. gc 프로파일러의 gc.alloc.rate.norm (bytes/op) 을 본다.
+ * ./gradlew jmh -Pjmh.includes=TxExecutorBenchmark
+ *
+ * - managerWithNewDefinition : BasicTxTest 처럼 매번 DefaultTransactionDefinition 을 new
+ * - newTemplate              : 호출마다 TransactionTemplate 생성
+ * - sharedTemplate           : TransactionTemplate 하나를 재사용
+ * - executor                 : 캐시된 TxDefinition + 캡처 없는 람다
+ * 트랜잭션 매니저 내부의 TransactionStatus 할당은 네 경우 모두 같다.
+ *
+ * manager 파라미터로 애플리케이션에 실제로 등록되는 형태의 매니저도 잰다.
+ * - noOp            : NoOpTransactionManager 그대로 (advice 와 템플릿 비용만)
+ * - deadline        : DeadlineTransactionManager 프록시, 기본 timeout 꺼짐 (기본 설정). 프록시 호출 비용이 더해진다.
+ * - deadlineDefault : 기본 timeout 켜짐. 트랜잭션마다 Deadline, Scope, DelegatingTransactionDefinition 이 더해진다.
+ * executor 의 할당 절감은 매니저와 무관하게 같은 크기로 남는지를 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TxExecutorBenchmark {
+
+    @Param({"noOp", "deadline", "deadlineDefault"})
+    private String manager;
+
+    private PlatformTransactionManager txManager;
+    private TransactionTemplate sharedTemplate;
+    private TxExecutor executor;
+    private long value = 1;
+
+    @Setup
+    public void setUp() {
+        PlatformTransactionManager noOp = new NoOpTransactionManager();
+        // 마감 시각을 넘기지 않으므로 메트릭은 쓰이지 않는다.
+        ObjectProvider<DeadlineMetrics> metrics = new DefaultListableBeanFactory().getBeanProvider(DeadlineMetrics.class);
+        txManager = switch (manager) {
+            case "deadline" -> DeadlineTransactionManager.proxy(noOp, Duration.ZERO, metrics);
+            case "deadlineDefault" -> DeadlineTransactionManager.proxy(noOp, Duration.ofSeconds(10), metrics);
+            default -> noOp;
+        };
+        sharedTemplate = new TransactionTemplate(txManager);
+        executor = new TxExecutor(txManager);
+    }
+
+    @Benchmark
+    public long managerWithNewDefinition() {
+        TransactionStatus status = txManager.getTransaction(new DefaultTransactionDefinition());
+        long result = value + 1;
+        txManager.commit(status);
+        return result;
+    }
+
+    @Benchmark
+    public Long newTemplate() {
+        long v = value;
+        return new TransactionTemplate(txManager).execute(status -> v + 1);
+    }
+
+    @Benchmark
+    public Long sharedTemplate() {
+        long v = value;
+        return sharedTemplate.execute(status -> v + 1);
+    }
+
+    @Benchmark
+    public Long executor() {
+        return executor.execute(TxDefinition.REQUIRED, this, TxExecutorBenchmark::next);
+    }
+
+    private static Long next(TxExecutorBenchmark benchmark) {
+        return benchmark.value + 1;
+    }
+}
@@ -0,0 +1,110 @@
+package hello.springtx.propagation;
+
+import hello.springtx.SpringtxApplication;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderView;
+import hello.springtx.programmatic.TxDefinition;
+import hello.springtx.programmatic.TxExecutor;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 큰 결과 조회 한 번의 지연과 할당량 : 관리 엔티티 vs 읽기 전용 엔티티 vs readOnly 트랜잭션 vs 프로젝션.
+ * 모두 읽기 쓰기 트랜잭션을 커밋하는 데까지 잰다. 관리 엔티티는 커밋할 때 rows 건을 더티 체킹한다.
+ * ./gradlew jmh -Pjmh.includes=ReadOnlyQueryBenchmark
+ * 힙 사용량은 gc 프로파일러의 gc.alloc.rate.norm (연산당 할당 바이트)로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlyQueryBenchmark {
+
+    private static final String PAY_STATUS = "대기";
+    private static final String SELECT_ENTITIES = "select o from Order o where o.payStatus = :payStatus and o.id > :after order by o.id";
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    ConfigurableApplicationContext context;
+    TxExecutor txExecutor;
+    EntityManager em;
+    OrderRepository orderRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringtxApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=WARN",
+                        "--logging.level.org.springframework.transaction.interceptor=WARN",
+                        "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+                        "--logging.level.org.hibernate.resource.transaction=WARN",
+                        "--logging.level.org.hibernate.sql=WARN");
+        txExecutor = context.getBean(TxExecutor.class);
+        em = context.getBean(EntityManager.class);
+        orderRepository = context.getBean(OrderRepository.class);
+
+        List<Object[]> batch = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            batch.add(new Object[]{id, "정상", PAY_STATUS, 1_000L});
+        }
+        context.getBean(JdbcTemplate.class)
+                .batchUpdate("insert into orders (id, user_name, pay_status, amount) values (?, ?, ?, ?)", batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int managedEntities() {
+        return txExecutor.execute(TxDefinition.REQUIRED, () -> selectEntities().size());
+    }
+
+    @Benchmark
+    public int readOnlyEntities() {
+        return txExecutor.execute(TxDefinition.REQUIRED,
+                () -> orderRepository.findReadOnlyByPayStatus(PAY_STATUS, 0, PageRequest.ofSize(rows)).size());
+    }
+
+    // 쿼리는 관리 엔티티와 같고 트랜잭션만 readOnly. 세션이 읽기 전용, FlushMode.MANUAL 로 열린다.
+    @Benchmark
+    public int readOnlyTransaction() {
+        return txExecutor.execute(TxDefinition.READ_ONLY, () -> selectEntities().size());
+    }
+
+    @Benchmark
+    public int projections() {
+        return txExecutor.execute(TxDefinition.REQUIRED, () -> {
+            List<OrderView> views = orderRepository.findViewsByPayStatus(PAY_STATUS, 0, PageRequest.ofSize(rows));
+            return views.size();
+        });
+    }
+
+    private List<Order> selectEntities() {
+        return em.createQuery(SELECT_ENTITIES, Order.class)
+                .setParameter("payStatus", PAY_STATUS)
+                .setParameter("after", 0L)
+                .setMaxResults(rows)
+                .getResultList();
+    }
+}
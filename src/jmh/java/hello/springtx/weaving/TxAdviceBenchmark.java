@@ -0,0 +1,120 @@
+package hello.springtx.weaving;
+
+import hello.springtx.NoOpTransactionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AdviceMode;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.aspectj.AnnotationTransactionAspect;
+import org.springframework.transaction.config.TransactionManagementConfigUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * &#64;Transactional 호출 한 번의 오버헤드 : CGLIB 프록시 vs 컴파일 타임 위빙.
+ * DB 비용을 빼고 advice 비용만 보기 위해 아무것도 하지 않는 트랜잭션 매니저를 쓴다.
+ * ./gradlew jmh -PaspectjTx -Pjmh.includes=TxAdviceBenchmark
+ *
+ * 대상은 main 의 SelfInvocationService 다. woven 벤치마크는 -PaspectjTx 로 main 이 위빙된 빌드에서만 돈다.
+ * 위빙된 빌드이므로 proxy 벤치마크에는 (설정되지 않은) 애스펙트의 건너뛰기 비용도 포함된다.
+ * 위빙하지 않은 빌드의 proxy 모드 비용은 -PaspectjTx 없이 proxy 만 돌려서 본다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TxAdviceBenchmark {
+
+    @Benchmark
+    public long proxy(ProxyState state) {
+        return state.service.increment();
+    }
+
+    @Benchmark
+    public long woven(WovenState state) {
+        return state.service.increment();
+    }
+
+    // 프록시 모드에서는 트랜잭션이 적용되지 않는 내부 호출. 위빙 모드에서는 적용된다.
+    @Benchmark
+    public long wovenSelfInvocation(WovenState state) {
+        return state.service.incrementViaSelf();
+    }
+
+    @State(Scope.Benchmark)
+    public static class ProxyState {
+        AnnotationConfigApplicationContext context;
+        SelfInvocationService service;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = new AnnotationConfigApplicationContext(ProxyConfig.class);
+            service = context.getBean(SelfInvocationService.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WovenState {
+        AnnotationConfigApplicationContext context;
+        SelfInvocationService service;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            if (!AspectjTxConfig.isWoven(SelfInvocationService.class)) {
+                throw new IllegalStateException("main 클래스가 위빙되지 않았습니다. -PaspectjTx 로 실행하세요.");
+            }
+            context = new AnnotationConfigApplicationContext(WovenConfig.class);
+            service = context.getBean(SelfInvocationService.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+            AnnotationTransactionAspect.aspectOf().setBeanFactory(null);
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement(proxyTargetClass = true)
+    static class ProxyConfig {
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new NoOpTransactionManager();
+        }
+
+        @Bean
+        SelfInvocationService selfInvocationService() {
+            return new SelfInvocationService();
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement(mode = AdviceMode.ASPECTJ)
+    static class WovenConfig {
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new NoOpTransactionManager();
+        }
+
+        @Bean
+        @DependsOn(TransactionManagementConfigUtils.TRANSACTION_ASPECT_BEAN_NAME)
+        SelfInvocationService selfInvocationService() {
+            return new SelfInvocationService();
+        }
+    }
+}
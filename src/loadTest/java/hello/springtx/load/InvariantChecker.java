@@ -0,0 +1,94 @@
+package hello.springtx.load;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 부하가 끝난 뒤 DB 상태가 각 작업의 트랜잭션 규칙과 맞는지 확인한다.
+ * - joinV1 : 성공하면 member, log 모두 저장. 로그예외면 둘 다 롤백.
+ * - joinV2 : 로그예외여도 member 는 저장되고 log 만 롤백. (REQUIRES_NEW)
+ * - order  : 정상 = 완료, 예외 = 롤백, 잔고부족 = 대기 상태로 커밋.
+ * 회원, 로그는 username 에 붙인 runId 로 이번 실행분만 센다.
+ * 주문은 userName 으로 시나리오와 계좌를 고르므로 runId 를 붙일 수 없다. 대신 부하 전에 주문 id 의 최댓값을 기억해 두고
+ * 그보다 큰 id(이번 실행에서 만든 주문)만 센다. 파일 DB 에 남은 이전 실행의 주문은 세지 않는다.
+ */
+@RequiredArgsConstructor
+public class InvariantChecker {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String runId;
+    private final long orderIdWatermark;
+
+    /**
+     * 부하를 걸기 전에 만든다.
+     */
+    public static InvariantChecker beforeRun(JdbcTemplate jdbcTemplate, String runId) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from orders", Long.class);
+        return new InvariantChecker(jdbcTemplate, runId, maxId == null ? 0 : maxId);
+    }
+
+    public List<Invariant> check(Map<Operation, OperationStats> stats) {
+        List<Invariant> results = new ArrayList<>();
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            Operation operation = entry.getKey();
+            OperationStats stat = entry.getValue();
+            String prefix = operation.usernamePrefix(runId);
+            switch (operation) {
+                case JOIN_V1, JOIN_V2 -> {
+                    results.add(expect(operation, "member 저장", stat.ok(), countMembers(prefix)));
+                    results.add(expect(operation, "log 저장", stat.ok(), countLogs(prefix)));
+                }
+                case JOIN_V1_LOG_FAIL -> {
+                    results.add(expect(operation, "member 롤백", 0, countMembers(prefix)));
+                    results.add(expect(operation, "log 롤백", 0, countLogs(prefix)));
+                }
+                case JOIN_V2_LOG_FAIL -> {
+                    results.add(expect(operation, "member 저장", stat.ok(), countMembers(prefix)));
+                    results.add(expect(operation, "log 롤백", 0, countLogs(prefix)));
+                }
+                case ORDER -> results.add(expect(operation, "결제 완료",
+                        stat.ok(), countOrders(prefix, "완료")));
+                case ORDER_FAIL -> results.add(expect(operation, "주문 롤백",
+                        0, countOrders(prefix, null)));
+                case ORDER_NOT_ENOUGH_MONEY -> results.add(expect(operation, "결제 대기",
+                        stat.expectedFailure(), countOrders(prefix, "대기")));
+            }
+        }
+        return results;
+    }
+
+    private long countMembers(String prefix) {
+        return count("select count(*) from member where username like ?", prefix + "%");
+    }
+
+    private long countLogs(String prefix) {
+        return count("select count(*) from log where message like ?", prefix + "%");
+    }
+
+    private long countOrders(String userName, String payStatus) {
+        if (payStatus == null) {
+            return count("select count(*) from orders where id > ? and user_name = ?", orderIdWatermark, userName);
+        }
+        return count("select count(*) from orders where id > ? and user_name = ? and pay_status = ?",
+                orderIdWatermark, userName, payStatus);
+    }
+
+    private long count(String sql, Object... args) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, args);
+        return count == null ? 0 : count;
+    }
+
+    private static Invariant expect(Operation operation, String name, long expected, long actual) {
+        return new Invariant(operation.key() + " " + name, expected, actual);
+    }
+
+    public record Invariant(String name, long expected, long actual) {
+        public boolean holds() {
+            return expected == actual;
+        }
+    }
+}
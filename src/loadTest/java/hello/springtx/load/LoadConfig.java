@@ -0,0 +1,54 @@
+package hello.springtx.load;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 부하 테스트 설정. 모두 -Dload.xxx 시스템 프로퍼티로 바꿀 수 있다.
+ * <pre>
+ * load.rate      초당 목표 요청 수 (전체)
+ * load.threads   요청을 보내는 스레드 수
+ * load.duration  측정 시간(초)
+ * load.warmup    측정 전 워밍업 시간(초). 결과 불변식 검사에는 포함된다.
+ * load.mix       작업별 비율. ex) joinV1=30,order=50,orderNotEnoughMoney=20
+ * load.reportDir 리포트 저장 위치
+ * load.build     리포트에 남길 빌드 이름
+ * load.joinBatch joinV1 을 MemberJoinBatcher 로 모아서 실행 (true/false, LoadTestMain 이 읽는다)
+ * </pre>
+ */
+public record LoadConfig(int rate, int threads, int durationSeconds, int warmupSeconds,
+                         Map<Operation, Integer> mix, Path reportDir, String build) {
+
+    static final String DEFAULT_MIX = "joinV1=30,joinV1LogFail=5,joinV2=20,joinV2LogFail=5,"
+            + "order=30,orderFail=5,orderNotEnoughMoney=5";
+
+    public static LoadConfig fromSystemProperties() {
+        return new LoadConfig(
+                Integer.getInteger("load.rate", 200),
+                Integer.getInteger("load.threads", 16),
+                Integer.getInteger("load.duration", 30),
+                Integer.getInteger("load.warmup", 5),
+                parseMix(System.getProperty("load.mix", DEFAULT_MIX)),
+                Path.of(System.getProperty("load.reportDir", "build/reports/loadtest")),
+                System.getProperty("load.build", "dev"));
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("load.mix 형식 오류 = " + entry);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.fromKey(pair[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix 에 실행할 작업이 없습니다.");
+        }
+        return weights;
+    }
+}
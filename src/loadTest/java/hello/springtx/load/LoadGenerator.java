@@ -0,0 +1,90 @@
+package hello.springtx.load;
+
+import hello.springtx.load.Operation.Outcome;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 목표 처리량으로 여러 스레드에서 작업을 실행한다.
+ * 각 스레드는 rate / threads 간격으로 "예정 시각"을 정해 두고, 지연시간은 예정 시각부터 잰다.
+ * 서버가 밀려서 요청이 늦게 나가도 그 대기 시간까지 기록된다. (coordinated omission 보정)
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private final LoadConfig config;
+    private final LoadTarget target;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+    private final AtomicLong sequence = new AtomicLong();
+
+    public LoadGenerator(LoadConfig config, LoadTarget target) {
+        this.config = config;
+        this.target = target;
+        this.operations = config.mix().keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += config.mix().get(operations[i]);
+            cumulativeWeights[i] = sum;
+            stats.put(operations[i], new OperationStats());
+        }
+    }
+
+    public Map<Operation, OperationStats> run() throws InterruptedException {
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) * config.threads() / config.rate();
+        long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFromNanos = startNanos + TimeUnit.SECONDS.toNanos(config.warmupSeconds());
+        long endNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+
+        log.info("부하 시작 rate={}/s threads={} warmup={}s duration={}s mix={}",
+                config.rate(), config.threads(), config.warmupSeconds(), config.durationSeconds(), config.mix());
+
+        CountDownLatch done = new CountDownLatch(config.threads());
+        for (int i = 0; i < config.threads(); i++) {
+            // 스레드마다 시작 시각을 조금씩 어긋나게 해서 요청이 한꺼번에 몰리지 않게 한다.
+            long firstNanos = startNanos + periodNanos * i / config.threads();
+            Thread worker = new Thread(() -> {
+                try {
+                    drive(firstNanos, periodNanos, measureFromNanos, endNanos);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + i);
+            worker.start();
+        }
+        done.await();
+        return stats;
+    }
+
+    private void drive(long firstNanos, long periodNanos, long measureFromNanos, long endNanos) {
+        for (long intended = firstNanos; intended < endNanos; intended += periodNanos) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            Operation operation = nextOperation();
+            Outcome outcome = operation.invoke(target, sequence.incrementAndGet());
+            long latency = System.nanoTime() - intended;
+            stats.get(operation).record(outcome, latency, intended >= measureFromNanos);
+        }
+    }
+
+    private Operation nextOperation() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+}
@@ -0,0 +1,94 @@
+package hello.springtx.load;
+
+import hello.springtx.load.InvariantChecker.Invariant;
+import org.HdrHistogram.Histogram;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 부하 테스트 결과를 텍스트 파일로 남긴다.
+ * 파일 이름에 빌드 이름과 시각을 넣어 빌드끼리 비교할 수 있게 한다.
+ * 요약 표 아래에 메서드별 락 대기(LockWaitSampler), 가입 배치 요약과 작업별 HdrHistogram 백분위 분포를 그대로 붙인다.
+ */
+public class LoadReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final LoadConfig config;
+    private final Map<Operation, OperationStats> stats;
+    private final List<Invariant> invariants;
+    private final String diagnostics;
+
+    public LoadReport(LoadConfig config, Map<Operation, OperationStats> stats, List<Invariant> invariants,
+                      String diagnostics) {
+        this.config = config;
+        this.stats = stats;
+        this.invariants = invariants;
+        this.diagnostics = diagnostics;
+    }
+
+    public boolean passed() {
+        return invariants.stream().allMatch(Invariant::holds);
+    }
+
+    public Path write() throws IOException {
+        Files.createDirectories(config.reportDir());
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = config.reportDir().resolve("loadtest-" + config.build() + "-" + timestamp + ".txt");
+        Files.writeString(file, render(), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    public String render() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+
+        out.printf("build=%s rate=%d/s threads=%d warmup=%ds duration=%ds%n",
+                config.build(), config.rate(), config.threads(), config.warmupSeconds(), config.durationSeconds());
+        out.printf("mix=%s%n%n", config.mix());
+
+        out.printf("%-20s %8s %8s %8s %8s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "ok", "expFail", "error", "errRate", "ops/s",
+                "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            OperationStats stat = entry.getValue();
+            Histogram histogram = stat.histogram();
+            out.printf("%-20s %8d %8d %8d %8.4f %9.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    entry.getKey().key(), stat.ok(), stat.expectedFailure(), stat.error(),
+                    stat.measuredErrorRate(),
+                    (double) histogram.getTotalCount() / config.durationSeconds(),
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+
+        out.printf("%ninvariants : %s%n", passed() ? "PASS" : "FAIL");
+        for (Invariant invariant : invariants) {
+            out.printf("  [%s] %s expected=%d actual=%d%n",
+                    invariant.holds() ? "OK" : "NG", invariant.name(), invariant.expected(), invariant.actual());
+        }
+
+        out.printf("%n%s", diagnostics);
+
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            out.printf("%n== %s latency distribution (ms) ==%n", entry.getKey().key());
+            entry.getValue().histogram().outputPercentileDistribution(out, NANOS_PER_MILLI);
+        }
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,13 @@
+package hello.springtx.load;
+
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberJoinBatcher;
+import hello.springtx.propagation.MemberService;
+
+/**
+ * 부하를 거는 대상 서비스. runId 는 실행마다 username 이 겹치지 않도록 붙인다.
+ * joinV1 은 MemberJoinBatcher 를 거친다. 배치가 꺼져 있으면 그대로 MemberService.joinV1 이다.
+ */
+public record LoadTarget(String runId, MemberService memberService, MemberJoinBatcher memberJoinBatcher,
+                         OrderService orderService) {
+}
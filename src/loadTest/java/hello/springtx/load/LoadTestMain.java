@@ -0,0 +1,71 @@
+package hello.springtx.load;
+
+import hello.springtx.SpringtxApplication;
+import hello.springtx.lockwait.LockWaitSampler;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberJoinBatcher;
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 애플리케이션을 그대로 띄우고 MemberService, OrderService 에 부하를 건다.
+ * 실행 : ./gradlew loadTest -Dload.rate=500 -Dload.threads=32 -Dload.duration=60
+ * 불변식이 깨지면 종료 코드 1 로 끝난다.
+ */
+@Slf4j
+public class LoadTestMain {
+
+    // application.properties 의 TRACE/DEBUG 로그가 부하 중에 지연시간을 왜곡하지 않도록 낮춘다.
+    private static final String[] QUIET_LOGGING = {
+            "--logging.level.org.springframework.transaction.interceptor=WARN",
+            "--logging.level.org.springframework.jdbc.datasource.DataSourceTransactionManager=WARN",
+            "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+            "--logging.level.org.hibernate.resource.transaction=WARN",
+            "--logging.level.org.hibernate.sql=WARN",
+            "--logging.level.hello.springtx=WARN",
+    };
+
+    private static String[] arguments() {
+        String[] args = Arrays.copyOf(QUIET_LOGGING, QUIET_LOGGING.length + 2);
+        // 부하 중 락 대기를 메서드별로 모아 리포트에 붙인다.
+        args[QUIET_LOGGING.length] = "--springtx.lockwait.enabled=true";
+        // -Dload.joinBatch=true : joinV1 을 MemberJoinBatcher 로 모아서 실행
+        args[QUIET_LOGGING.length + 1] = "--springtx.member.join-batch.enabled=" + Boolean.getBoolean("load.joinBatch");
+        return args;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadConfig config = LoadConfig.fromSystemProperties();
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+
+        boolean passed;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringtxApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments())) {
+
+            LoadTarget target = new LoadTarget(runId, context.getBean(MemberService.class),
+                    context.getBean(MemberJoinBatcher.class), context.getBean(OrderService.class));
+            InvariantChecker invariantChecker = InvariantChecker.beforeRun(context.getBean(JdbcTemplate.class), runId);
+            Map<Operation, OperationStats> stats = new LoadGenerator(config, target).run();
+
+            List<InvariantChecker.Invariant> invariants = invariantChecker.check(stats);
+            LoadReport report = new LoadReport(config, stats, invariants,
+                    context.getBean(LockWaitSampler.class).dump() + context.getBean(MemberJoinBatcher.class).summary());
+            Path file = report.write();
+
+            System.out.println(report.render());
+            log.warn("부하 테스트 리포트 = {}", file.toAbsolutePath());
+            passed = report.passed();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+}
@@ -0,0 +1,117 @@
+package hello.springtx.load;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+
+/**
+ * 부하 테스트에서 실행하는 작업 종류.
+ * expected 가 지정된 작업은 해당 예외가 나야 정상으로 본다. (로그예외, 예외, 잔고부족)
+ */
+public enum Operation {
+
+    JOIN_V1("joinV1", "load_v1_", null) {
+        @Override
+        void execute(LoadTarget target, String username) {
+            target.memberJoinBatcher().join(username);
+        }
+    },
+    JOIN_V1_LOG_FAIL("joinV1LogFail", "로그예외_load_v1_", RuntimeException.class) {
+        @Override
+        void execute(LoadTarget target, String username) {
+            target.memberJoinBatcher().join(username);
+        }
+    },
+    JOIN_V2("joinV2", "load_v2_", null) {
+        @Override
+        void execute(LoadTarget target, String username) {
+            target.memberService().joinV2(username);
+        }
+    },
+    // joinV2 는 로그 저장 예외를 복구하므로 예외가 밖으로 나오지 않는다.
+    JOIN_V2_LOG_FAIL("joinV2LogFail", "로그예외_load_v2_", null) {
+        @Override
+        void execute(LoadTarget target, String username) {
+            target.memberService().joinV2(username);
+        }
+    },
+    ORDER("order", "정상", null) {
+        @Override
+        void execute(LoadTarget target, String username) throws NotEnoughMoneyException {
+            target.orderService().order(newOrder(username));
+        }
+    },
+    ORDER_FAIL("orderFail", "예외", RuntimeException.class) {
+        @Override
+        void execute(LoadTarget target, String username) throws NotEnoughMoneyException {
+            target.orderService().order(newOrder(username));
+        }
+    },
+    ORDER_NOT_ENOUGH_MONEY("orderNotEnoughMoney", "잔고부족", NotEnoughMoneyException.class) {
+        @Override
+        void execute(LoadTarget target, String username) throws NotEnoughMoneyException {
+            target.orderService().order(newOrder(username));
+        }
+    };
+
+    private final String key;
+    private final String usernamePrefix;
+    private final Class<? extends Exception> expected;
+
+    Operation(String key, String usernamePrefix, Class<? extends Exception> expected) {
+        this.key = key;
+        this.usernamePrefix = usernamePrefix;
+        this.expected = expected;
+    }
+
+    abstract void execute(LoadTarget target, String username) throws Exception;
+
+    public Outcome invoke(LoadTarget target, long seq) {
+        try {
+            execute(target, username(target.runId(), seq));
+        } catch (Exception e) {
+            return expected != null && expected.isInstance(e) ? Outcome.EXPECTED_FAILURE : Outcome.ERROR;
+        }
+        return expected == null ? Outcome.OK : Outcome.ERROR;
+    }
+
+    /**
+     * 주문은 userName 으로 시나리오를 고르기 때문에 고정값을 그대로 쓴다.
+     */
+    public String username(String runId, long seq) {
+        if (isOrder()) {
+            return usernamePrefix;
+        }
+        return usernamePrefix + runId + "_" + seq;
+    }
+
+    public String usernamePrefix(String runId) {
+        return isOrder() ? usernamePrefix : usernamePrefix + runId + "_";
+    }
+
+    public boolean isOrder() {
+        return this == ORDER || this == ORDER_FAIL || this == ORDER_NOT_ENOUGH_MONEY;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 작업 = " + key);
+    }
+
+    private static Order newOrder(String username) {
+        Order order = new Order();
+        order.setUserName(username);
+        return order;
+    }
+
+    public enum Outcome {
+        OK, EXPECTED_FAILURE, ERROR
+    }
+}
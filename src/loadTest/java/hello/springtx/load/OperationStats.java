@@ -0,0 +1,65 @@
+package hello.springtx.load;
+
+import hello.springtx.load.Operation.Outcome;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 작업 하나의 결과 집계.
+ * 건수는 워밍업 포함 전체를 세고(불변식 검사용), 지연시간은 측정 구간만 기록한다.
+ */
+public class OperationStats {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder expectedFailure = new LongAdder();
+    private final LongAdder error = new LongAdder();
+    private final LongAdder measuredErrors = new LongAdder();
+    private Histogram histogram;
+
+    public void record(Outcome outcome, long latencyNanos, boolean measured) {
+        switch (outcome) {
+            case OK -> ok.increment();
+            case EXPECTED_FAILURE -> expectedFailure.increment();
+            case ERROR -> error.increment();
+        }
+        if (measured) {
+            recorder.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+            if (outcome == Outcome.ERROR) {
+                measuredErrors.increment();
+            }
+        }
+    }
+
+    /**
+     * 부하가 끝난 뒤 한 번 호출해 측정 구간의 히스토그램을 고정한다.
+     */
+    public Histogram histogram() {
+        if (histogram == null) {
+            histogram = recorder.getIntervalHistogram();
+        }
+        return histogram;
+    }
+
+    public long ok() {
+        return ok.sum();
+    }
+
+    public long expectedFailure() {
+        return expectedFailure.sum();
+    }
+
+    public long error() {
+        return error.sum();
+    }
+
+    public double measuredErrorRate() {
+        long count = histogram().getTotalCount();
+        return count == 0 ? 0 : (double) measuredErrors.sum() / count;
+    }
+}
@@ -0,0 +1,29 @@
+package hello.springtx.account;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 사용자 계좌. balance 는 LedgerWriter 가 주기적으로 반영한 잔고다.
+ * 실시간 가용 잔고는 메모리의 BalanceReservations 가 관리한다.
+ */
+@Entity
+@Getter
+@Setter
+public class Account {
+
+    @Id
+    private String userName; // 주문의 userName 과 같은 값
+
+    private long balance;
+
+    public Account() {
+    }
+
+    public Account(String userName, long balance) {
+        this.userName = userName;
+        this.balance = balance;
+    }
+}
@@ -0,0 +1,14 @@
+package hello.springtx.account;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface AccountRepository extends JpaRepository<Account, String> {
+
+    // 엔티티를 읽지 않고 한 번의 UPDATE 로 잔고를 차감한다.
+    @Modifying
+    @Query("update Account a set a.balance = a.balance - :amount where a.userName = :userName")
+    int debit(@Param("userName") String userName, @Param("amount") long amount);
+}
@@ -0,0 +1,97 @@
+package hello.springtx.account;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * 계좌별 가용 잔고를 메모리에서 관리하는 예약 계층.
+ * 주문 트랜잭션 안에서 reserve 하면, 커밋 시 확정(confirm)되고 롤백 시 되돌린다(release).
+ * 확정된 금액은 LedgerWriter 가 주기적으로 원장과 계좌 잔고에 반영한다.
+ * 계좌 행에 락을 걸지 않으므로 같은 계좌의 동시 주문이 한 행에서 대기하지 않는다.
+ * 가용 잔고는 이 JVM 메모리에만 있으므로 애플리케이션 인스턴스가 하나일 때만 맞다.
+ * 여러 인스턴스가 같은 계좌를 처리하면 각자 DB 잔고에서 시작해 중복으로 예약하게 된다.
+ */
+@Slf4j
+@Component
+public class BalanceReservations {
+
+    private final AccountRepository accountRepository;
+    private final int stripes;
+    private final Map<String, StripedBalance> balances = new ConcurrentHashMap<>();
+
+    public BalanceReservations(AccountRepository accountRepository,
+                               @Value("${springtx.account.stripes:16}") int stripes) {
+        this.accountRepository = accountRepository;
+        this.stripes = stripes;
+    }
+
+    /**
+     * 잔고가 충분하면 금액을 예약하고 true. 계좌가 없으면 잔고 0 으로 본다.
+     */
+    public boolean reserve(String userName, long amount) {
+        StripedBalance balance = balanceOf(userName);
+        if (!balance.tryReserve(amount)) {
+            log.info("잔고 부족 userName={} amount={} available={}", userName, amount, balance.available());
+            return false;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        balance.confirm(amount);
+                    } else {
+                        balance.release(amount);
+                    }
+                }
+            });
+        } else {
+            // 트랜잭션 밖에서 호출되면 바로 확정한다.
+            balance.confirm(amount);
+        }
+        return true;
+    }
+
+    public long available(String userName) {
+        return balanceOf(userName).available();
+    }
+
+    /**
+     * 확정된 금액을 계좌별로 꺼내 넘겨준다. 꺼낸 금액은 다시 나오지 않는다.
+     */
+    void drainConfirmed(BiConsumer<String, Long> consumer) {
+        balances.forEach((userName, balance) -> {
+            long amount = balance.drainUnflushed();
+            if (amount > 0) {
+                consumer.accept(userName, amount);
+            }
+        });
+    }
+
+    /**
+     * 원장 반영에 실패한 금액을 다시 확정 대기로 돌려놓는다.
+     */
+    void restoreConfirmed(String userName, long amount) {
+        balanceOf(userName).confirm(amount);
+    }
+
+    private StripedBalance balanceOf(String userName) {
+        StripedBalance balance = balances.get(userName);
+        if (balance != null) {
+            return balance;
+        }
+        // computeIfAbsent 안에서 DB 를 조회하면 맵의 bin 락을 쥔 채 I/O 를 기다리게 된다. 밖에서 읽고 먼저 넣은 쪽을 쓴다.
+        StripedBalance loaded = new StripedBalance(
+                accountRepository.findById(userName).map(Account::getBalance).orElse(0L), stripes);
+        StripedBalance existing = balances.putIfAbsent(userName, loaded);
+        return existing != null ? existing : loaded;
+    }
+}
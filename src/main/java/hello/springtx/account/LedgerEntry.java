@@ -0,0 +1,35 @@
+package hello.springtx.account;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 계좌 원장. 한 번의 flush 동안 확정된 출금 합계가 한 행으로 쌓인다. (출금은 음수)
+ */
+@Entity
+@Getter
+@Setter
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    private String userName;
+    private long amount;
+    private LocalDateTime createdAt;
+
+    public LedgerEntry() {
+    }
+
+    public LedgerEntry(String userName, long amount, LocalDateTime createdAt) {
+        this.userName = userName;
+        this.amount = amount;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,6 @@
+package hello.springtx.account;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+}
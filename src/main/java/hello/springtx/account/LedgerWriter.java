@@ -0,0 +1,63 @@
+package hello.springtx.account;
+
+import hello.springtx.deadline.Deadline;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 확정된 출금을 주기적으로 원장(LedgerEntry)과 계좌 잔고(Account)에 반영한다.
+ * 주문마다 계좌 행을 수정하지 않고, 주기마다 계좌당 한 번만 UPDATE 한다.
+ * 스케줄러 호출과 종료 시 호출 모두 같은 빈 안에서 일어나므로 @Transactional 대신 TransactionTemplate 을 쓴다.
+ * 쌓인 양에 따라 오래 걸릴 수 있는 배치 작업이라 기본 timeout(springtx.deadline.default-timeout)을 받지 않는다.
+ */
+@Slf4j
+@Component
+public class LedgerWriter {
+
+    private final BalanceReservations reservations;
+    private final AccountRepository accountRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final TransactionTemplate txTemplate;
+
+    public LedgerWriter(BalanceReservations reservations, AccountRepository accountRepository,
+                        LedgerEntryRepository ledgerEntryRepository, PlatformTransactionManager txManager) {
+        this.reservations = reservations;
+        this.accountRepository = accountRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.txTemplate = new TransactionTemplate(txManager);
+    }
+
+    @Scheduled(fixedDelayString = "${springtx.account.ledger-flush-interval:1000}")
+    public void flush() {
+        Map<String, Long> confirmed = new HashMap<>();
+        reservations.drainConfirmed(confirmed::put);
+        if (confirmed.isEmpty()) {
+            return;
+        }
+
+        try (Deadline.Scope scope = Deadline.unbounded()) {
+            txTemplate.executeWithoutResult(status -> confirmed.forEach((userName, amount) -> {
+                log.info("원장 반영 userName={} amount={}", userName, amount);
+                ledgerEntryRepository.save(new LedgerEntry(userName, -amount, LocalDateTime.now()));
+                accountRepository.debit(userName, amount);
+            }));
+        } catch (RuntimeException e) {
+            // 반영하지 못한 금액은 다음 주기에 다시 시도한다.
+            log.warn("원장 반영 실패, 다음 주기에 재시도 count={}", confirmed.size(), e);
+            confirmed.forEach(reservations::restoreConfirmed);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
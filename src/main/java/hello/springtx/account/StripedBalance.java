@@ -0,0 +1,95 @@
+package hello.springtx.account;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 한 계좌의 가용 잔고를 여러 칸(stripe)에 나눠 담는다.
+ * 스레드마다 자기 칸에서 CAS 로 차감하므로 같은 계좌의 동시 주문이 한 곳에서 줄을 서지 않는다.
+ * 어느 한 칸에도 금액이 모자랄 때만 락을 잡고 모든 칸을 모아 다시 판단한다.
+ * 칸의 합은 항상 (초기 잔고 - 예약 중 - 확정) 이다.
+ */
+class StripedBalance {
+
+    // 칸끼리 같은 캐시 라인을 쓰지 않도록 long 8개(64바이트) 간격으로 둔다.
+    private static final int PAD = 8;
+
+    private final int stripes;
+    private final AtomicLongArray available;
+    private final AtomicLongArray unflushed;
+
+    StripedBalance(long balance, int stripes) {
+        this.stripes = stripes;
+        this.available = new AtomicLongArray(stripes * PAD);
+        this.unflushed = new AtomicLongArray(stripes * PAD);
+        for (int i = 0; i < stripes; i++) {
+            available.set(i * PAD, balance / stripes + (i < balance % stripes ? 1 : 0));
+        }
+    }
+
+    boolean tryReserve(long amount) {
+        if (amount <= 0) {
+            return true;
+        }
+        int home = home();
+        for (int i = 0; i < stripes; i++) {
+            int index = ((home + i) % stripes) * PAD;
+            long current;
+            while ((current = available.get(index)) >= amount) {
+                if (available.compareAndSet(index, current, current - amount)) {
+                    return true;
+                }
+            }
+        }
+        return reserveConsolidated(amount, home);
+    }
+
+    /**
+     * 잔고가 여러 칸에 흩어져 있어 한 칸으로는 부족한 경우. 모든 칸을 비워 합친 뒤 판단한다.
+     * 락 안에서만 칸을 비우므로, 다른 스레드가 빈 칸을 보고 실패하더라도 이 락을 기다렸다가 다시 합산하게 된다.
+     */
+    private synchronized boolean reserveConsolidated(long amount, int home) {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += available.getAndSet(i * PAD, 0);
+        }
+        boolean reserved = sum >= amount;
+        available.addAndGet(home * PAD, reserved ? sum - amount : sum);
+        return reserved;
+    }
+
+    /** 롤백된 주문의 예약을 되돌린다. */
+    void release(long amount) {
+        if (amount > 0) {
+            available.addAndGet(home() * PAD, amount);
+        }
+    }
+
+    /** 커밋된 주문의 예약을 확정한다. 다음 flush 때 원장에 기록된다. */
+    void confirm(long amount) {
+        if (amount > 0) {
+            unflushed.addAndGet(home() * PAD, amount);
+        }
+    }
+
+    /** 아직 원장에 기록하지 않은 확정 금액을 꺼내고 0 으로 만든다. */
+    long drainUnflushed() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += unflushed.getAndSet(i * PAD, 0);
+        }
+        return sum;
+    }
+
+    long available() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += available.get(i * PAD);
+        }
+        return sum;
+    }
+
+    private int home() {
+        int h = Thread.currentThread().hashCode();
+        return ((h ^ (h >>> 16)) & 0x7fffffff) % stripes;
+    }
+}
@@ -0,0 +1,100 @@
+package hello.springtx.deadline;
+
+import java.time.Duration;
+
+/**
+ * 요청 단위 마감 시각. 현재 스레드에 묶어 두면 그 안에서 시작하는 트랜잭션과 JDBC 문장이
+ * 남은 시간만큼만 timeout 을 갖게 된다.
+ * <pre>
+ * try (Deadline.Scope scope = Deadline.start(Duration.ofMillis(500))) {
+ *     orderService.order(order);
+ * }
+ * </pre>
+ * 이미 마감 시각이 있으면 더 이른 쪽을 따른다.
+ * 배치처럼 오래 걸리는 작업은 {@link #unbounded()} 로 감싸 기본 timeout 을 받지 않게 한다.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    // 기본 timeout 적용을 명시적으로 끈 구간의 표시
+    private static final Deadline UNBOUNDED = new Deadline(0);
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Scope start(Duration budget) {
+        Deadline previous = CURRENT.get();
+        Deadline deadline = new Deadline(System.nanoTime() + budget.toNanos());
+        if (previous != null && previous != UNBOUNDED && previous.expiresAtNanos - deadline.expiresAtNanos < 0) {
+            deadline = previous;
+        }
+        CURRENT.set(deadline);
+        return new Scope(previous);
+    }
+
+    /**
+     * 마감 시각 없이 실행하고, 그 안에서 시작하는 바깥 트랜잭션에도 기본 timeout 을 적용하지 않는다.
+     * 바깥에 마감 시각이 있었어도 이 구간에서는 무시한다. 안에서 다시 start 하면 그 마감 시각을 따른다.
+     */
+    public static Scope unbounded() {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(UNBOUNDED);
+        return new Scope(previous);
+    }
+
+    /**
+     * 현재 스레드의 마감 시각. 없거나 unbounded 구간이면 null.
+     */
+    public static Deadline current() {
+        Deadline deadline = CURRENT.get();
+        return deadline == UNBOUNDED ? null : deadline;
+    }
+
+    public static boolean isUnbounded() {
+        return CURRENT.get() == UNBOUNDED;
+    }
+
+    public long remainingMillis() {
+        return Duration.ofNanos(expiresAtNanos - System.nanoTime()).toMillis();
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 트랜잭션, JDBC timeout 은 초 단위라 남은 시간을 올림한다. 최소 1초.
+     * 그래서 timeout 으로 끊기는 시점은 마감 시각보다 최대 1초 늦다. (100ms 남았으면 1초 timeout 을 받는다)
+     * 이미 지난 마감 시각은 올림하지 않는다. 부르는 쪽(DeadlineTransactionManager, DeadlineJdbcListener)이
+     * 먼저 isExpired 를 보고 바로 실패시킨다.
+     */
+    public int remainingSeconds() {
+        long millis = remainingMillis();
+        return (int) Math.max(1, (millis + 999) / 1000);
+    }
+
+    /**
+     * 끝나면 이전 마감 시각으로 되돌린다.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Deadline previous;
+
+        private Scope(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
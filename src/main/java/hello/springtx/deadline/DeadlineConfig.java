@@ -0,0 +1,26 @@
+package hello.springtx.deadline;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+@Configuration
+public class DeadlineConfig {
+
+    // BeanPostProcessor 는 다른 빈보다 먼저 만들어지므로 static 으로 등록한다.
+    @Bean
+    static DeadlinePostProcessor deadlinePostProcessor(Environment environment,
+                                                       ObjectProvider<DeadlineMetrics> metrics) {
+        Duration defaultTimeout = environment.getProperty(
+                "springtx.deadline.default-timeout", Duration.class, Duration.ZERO);
+        return new DeadlinePostProcessor(defaultTimeout, metrics);
+    }
+
+    @Bean
+    DeadlineJdbcListener deadlineJdbcListener(ObjectProvider<DeadlineMetrics> metrics) {
+        return new DeadlineJdbcListener(metrics);
+    }
+}
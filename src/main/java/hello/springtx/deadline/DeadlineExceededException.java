@@ -0,0 +1,13 @@
+package hello.springtx.deadline;
+
+import org.springframework.transaction.TransactionTimedOutException;
+
+/**
+ * 마감 시각이 지나 트랜잭션을 시작하지 않고 중단했을 때 던진다.
+ */
+public class DeadlineExceededException extends TransactionTimedOutException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
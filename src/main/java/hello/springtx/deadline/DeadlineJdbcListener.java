@@ -0,0 +1,83 @@
+package hello.springtx.deadline;
+
+import hello.springtx.jdbc.JdbcListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+/**
+ * 실행 직전마다 JDBC 문장의 query timeout 을 마감 시각까지 남은 시간으로 맞춘다. (초 단위 올림, Deadline.remainingSeconds)
+ * 이미 마감 시각이 지났으면 실행하지 않고 SQLTimeoutException 을 던진다.
+ * DB 가 timeout 으로 문장을 취소한 경우도 초과로 센다.
+ * 마감 시각이 지난 문장은 다른 리스너에 알리지 않도록 가장 먼저 부른다.
+ * 실행이 끝나면 원래 timeout 으로 되돌린다. H2 는 query timeout 을 문장이 아니라 세션(커넥션)에 걸기 때문에
+ * 되돌리지 않으면 풀에 돌아간 커넥션의 다음 문장까지 같은 timeout 을 받는다.
+ */
+@Slf4j
+public class DeadlineJdbcListener implements JdbcListener<DeadlineJdbcListener.Applied>, Ordered {
+
+    private final ObjectProvider<DeadlineMetrics> metrics;
+
+    public DeadlineJdbcListener(ObjectProvider<DeadlineMetrics> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Applied acquired(Connection physicalConnection) {
+        return new Applied();
+    }
+
+    @Override
+    public void executing(Applied state, Statement statement) throws SQLException {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return;
+        }
+        if (deadline.isExpired()) {
+            metrics.getObject().exceeded(null);
+            throw new SQLTimeoutException("Deadline exceeded before statement execution");
+        }
+        int remaining = deadline.remainingSeconds();
+        int current = statement.getQueryTimeout();
+        int timeout = current > 0 ? Math.min(current, remaining) : remaining;
+        if (timeout != current) {
+            statement.setQueryTimeout(timeout);
+            state.previous = current;
+        }
+    }
+
+    @Override
+    public void failed(Applied state, SQLException e) {
+        if (e instanceof SQLTimeoutException && Deadline.current() != null) {
+            metrics.getObject().exceeded(null);
+        }
+    }
+
+    @Override
+    public void executed(Applied state, Statement statement) {
+        if (state.previous < 0) {
+            return;
+        }
+        try {
+            statement.setQueryTimeout(state.previous);
+        } catch (SQLException e) {
+            log.warn("query timeout 을 되돌리지 못했습니다. timeout={}", state.previous, e);
+        }
+        state.previous = -1;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    // 빌린 커넥션에서 마지막으로 바꾸기 전의 query timeout. 바꾸지 않았으면 -1
+    static final class Applied {
+        private int previous = -1;
+    }
+}
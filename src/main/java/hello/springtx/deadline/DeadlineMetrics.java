@@ -0,0 +1,40 @@
+package hello.springtx.deadline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 마감 시각 초과를 메서드(트랜잭션 이름)별로 센다. springtx.deadline.exceeded{method=...}
+ */
+@Component
+@RequiredArgsConstructor
+public class DeadlineMetrics {
+
+    static final String EXCEEDED = "springtx.deadline.exceeded";
+
+    private final MeterRegistry registry;
+
+    public void exceeded(String method) {
+        Counter.builder(EXCEEDED)
+                .tag("method", method != null ? method : currentMethod())
+                .register(registry)
+                .increment();
+    }
+
+    public long exceededCount(String method) {
+        Counter counter = registry.find(EXCEEDED).tag("method", method).counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+    /**
+     * JDBC 문장은 어느 메서드에서 실행됐는지 모르므로 현재 트랜잭션 이름을 쓴다.
+     * &#64;Transactional 메서드의 트랜잭션 이름은 "클래스명.메서드명" 이다.
+     */
+    static String currentMethod() {
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name != null ? name : "none";
+    }
+}
@@ -0,0 +1,41 @@
+package hello.springtx.deadline;
+
+import hello.springtx.jdbc.PrimaryBeans;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+/**
+ * 주 트랜잭션 매니저만 마감 시각 적용 프록시로 감싼다.
+ * JDBC 문장의 timeout 은 DeadlineJdbcListener 가 InstrumentedDataSource 를 통해 맞춘다.
+ */
+public class DeadlinePostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+    private final Duration defaultTimeout;
+    private final ObjectProvider<DeadlineMetrics> metrics;
+    private ConfigurableListableBeanFactory beanFactory;
+
+    public DeadlinePostProcessor(Duration defaultTimeout, ObjectProvider<DeadlineMetrics> metrics) {
+        this.defaultTimeout = defaultTimeout;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof PlatformTransactionManager txManager
+                && PrimaryBeans.isPrimary(beanFactory, beanName, PlatformTransactionManager.class)) {
+            return DeadlineTransactionManager.proxy(txManager, defaultTimeout, metrics);
+        }
+        return bean;
+    }
+}
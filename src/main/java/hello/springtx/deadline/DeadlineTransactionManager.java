@@ -0,0 +1,145 @@
+package hello.springtx.deadline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DelegatingTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * 트랜잭션을 시작할 때 현재 마감 시각까지 남은 시간을 트랜잭션 timeout 으로 넘긴다.
+ * REQUIRES_NEW 로 새로 여는 내부 트랜잭션(LogRepository.save 등)도 이 경로를 지나므로 같은 마감 시각을 따른다.
+ * 마감 시각이 없는 상태에서 바깥 트랜잭션이 시작되면 기본 timeout 으로 마감 시각을 만들고, 그 트랜잭션이 끝날 때 지운다.
+ * 기본 timeout 은 기본값이 꺼져 있고, 켜더라도 {@link Deadline#unbounded()} 구간은 적용하지 않는다.
+ * 빈으로 등록할 때는 {@link #proxy} 로 감싸서 원래 매니저의 인터페이스(ResourceTransactionManager 등)를 유지한다.
+ */
+@Slf4j
+public class DeadlineTransactionManager implements PlatformTransactionManager {
+
+    private final PlatformTransactionManager delegate;
+    private final Duration defaultTimeout;
+    private final ObjectProvider<DeadlineMetrics> metrics;
+
+    // 기본 timeout 으로 만든 마감 시각과 그것을 만든 바깥 트랜잭션
+    private final ThreadLocal<Deadline.Scope> defaultScope = new ThreadLocal<>();
+    private final ThreadLocal<TransactionStatus> defaultScopeOwner = new ThreadLocal<>();
+
+    public DeadlineTransactionManager(PlatformTransactionManager delegate, Duration defaultTimeout,
+                                      ObjectProvider<DeadlineMetrics> metrics) {
+        this.delegate = delegate;
+        this.defaultTimeout = defaultTimeout;
+        this.metrics = metrics;
+    }
+
+    public PlatformTransactionManager getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * target 이 구현한 인터페이스를 모두 가진 프록시를 만든다. getTransaction, commit, rollback 만 마감 시각을 적용하고
+     * 나머지(getResourceFactory 등)는 target 으로 바로 넘긴다.
+     * AbstractPlatformTransactionManager 의 세 메서드는 final 이라 클래스 프록시로는 가로챌 수 없다.
+     */
+    public static PlatformTransactionManager proxy(PlatformTransactionManager target, Duration defaultTimeout,
+                                                   ObjectProvider<DeadlineMetrics> metrics) {
+        DeadlineTransactionManager deadlineTxManager = new DeadlineTransactionManager(target, defaultTimeout, metrics);
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            Object[] args = invocation.getArguments();
+            if (args.length == 1) {
+                switch (invocation.getMethod().getName()) {
+                    case "getTransaction":
+                        return deadlineTxManager.getTransaction((TransactionDefinition) args[0]);
+                    case "commit":
+                        deadlineTxManager.commit((TransactionStatus) args[0]);
+                        return null;
+                    case "rollback":
+                        deadlineTxManager.rollback((TransactionStatus) args[0]);
+                        return null;
+                }
+            }
+            return invocation.proceed();
+        });
+        return (PlatformTransactionManager) proxyFactory.getProxy(DeadlineTransactionManager.class.getClassLoader());
+    }
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+        TransactionDefinition target = definition != null ? definition : TransactionDefinition.withDefaults();
+
+        Deadline.Scope scope = null;
+        if (Deadline.current() == null && defaultTimeout.compareTo(Duration.ZERO) > 0
+                && !Deadline.isUnbounded() && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            scope = Deadline.start(defaultTimeout);
+        }
+
+        try {
+            TransactionStatus status = delegate.getTransaction(withRemainingTimeout(target));
+            if (scope != null) {
+                defaultScope.set(scope);
+                defaultScopeOwner.set(status);
+            }
+            return status;
+        } catch (RuntimeException | Error e) {
+            if (scope != null) {
+                scope.close();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        try {
+            delegate.commit(status);
+        } finally {
+            closeDefaultScope(status);
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        try {
+            delegate.rollback(status);
+        } finally {
+            closeDefaultScope(status);
+        }
+    }
+
+    private TransactionDefinition withRemainingTimeout(TransactionDefinition definition) {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return definition;
+        }
+        if (deadline.isExpired()) {
+            metrics.getObject().exceeded(definition.getName());
+            log.info("마감 시각 초과로 트랜잭션 시작 안함 name={}", definition.getName());
+            throw new DeadlineExceededException("Deadline exceeded before transaction start: " + definition.getName());
+        }
+
+        int remaining = deadline.remainingSeconds();
+        int timeout = definition.getTimeout() == TransactionDefinition.TIMEOUT_DEFAULT
+                ? remaining : Math.min(definition.getTimeout(), remaining);
+        return new DelegatingTransactionDefinition(definition) {
+            @Override
+            public int getTimeout() {
+                return timeout;
+            }
+        };
+    }
+
+    private void closeDefaultScope(TransactionStatus status) {
+        if (defaultScopeOwner.get() == status) {
+            defaultScope.get().close();
+            defaultScope.remove();
+            defaultScopeOwner.remove();
+        }
+    }
+}
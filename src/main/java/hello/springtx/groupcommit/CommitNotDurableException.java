@@ -0,0 +1,13 @@
+package hello.springtx.groupcommit;
+
+/**
+ * 트랜잭션은 이미 커밋됐지만 디스크 동기화(CHECKPOINT SYNC)에 실패했을 때 던진다.
+ * 커밋 실패가 아니므로 호출자는 같은 작업을 다시 실행하면 안 된다. (주문이면 중복 주문이 된다)
+ * 데이터는 DB 에 반영되어 있고, 다음 동기화가 성공하면 디스크에도 내려간다.
+ */
+public class CommitNotDurableException extends RuntimeException {
+
+    public CommitNotDurableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
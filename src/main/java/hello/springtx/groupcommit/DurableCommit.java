@@ -0,0 +1,84 @@
+package hello.springtx.groupcommit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * 파일 DB(durable 프로파일)에서 커밋이 디스크까지 내려간 뒤에 메서드가 반환되도록 한다.
+ * H2 는 커밋을 WRITE_DELAY 동안 모아 쓰므로, 커밋 직후 CHECKPOINT SYNC 로 디스크 동기화를 강제한다.
+ * springtx.durable.commit
+ * - none      : 동기화하지 않음 (기본, 메모리 DB)
+ * - immediate : 커밋마다 각자 동기화
+ * - group     : 동시에 끝난 커밋을 모아 한 번 동기화 (GroupCommitter)
+ * 동기화가 실패하면 커밋은 이미 끝났으므로 CommitNotDurableException 을 던져 커밋 실패와 구분한다.
+ * 메트릭
+ * - springtx.durable.sync          : 동기화 소요 시간
+ * - springtx.durable.sync.failures : 커밋 후 동기화 실패 수
+ */
+@Slf4j
+@Component
+public class DurableCommit {
+
+    public enum Mode { NONE, IMMEDIATE, GROUP }
+
+    private final Mode mode;
+    private final JdbcTemplate jdbcTemplate;
+    private final GroupCommitter groupCommitter;
+    private final Timer syncTimer;
+    private final Counter syncFailures;
+
+    public DurableCommit(JdbcTemplate jdbcTemplate, MeterRegistry registry,
+                         @Value("${springtx.durable.commit:none}") Mode mode,
+                         @Value("${springtx.durable.group.max-wait:2ms}") Duration maxWait,
+                         @Value("${springtx.durable.group.batch-size:64}") int batchSize) {
+        this.mode = mode;
+        this.jdbcTemplate = jdbcTemplate;
+        this.syncTimer = Timer.builder("springtx.durable.sync").register(registry);
+        this.syncFailures = Counter.builder("springtx.durable.sync.failures").register(registry);
+        DistributionSummary batch = DistributionSummary.builder("springtx.durable.group.batch").register(registry);
+        this.groupCommitter = new GroupCommitter(this::sync, maxWait, batchSize, batch::record);
+        log.info("durable commit mode={} maxWait={} batchSize={}", mode, maxWait, batchSize);
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋되면 디스크 동기화가 끝날 때까지 기다리도록 등록한다.
+     * 롤백되면 기다리지 않는다.
+     */
+    public void awaitAfterCommit() {
+        if (mode == Mode.NONE || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    if (mode == Mode.GROUP) {
+                        groupCommitter.awaitDurable();
+                    } else {
+                        sync();
+                    }
+                } catch (RuntimeException e) {
+                    syncFailures.increment();
+                    log.error("커밋 후 디스크 동기화 실패. 커밋은 완료됨 mode={}", mode, e);
+                    throw new CommitNotDurableException("Transaction committed but checkpoint sync failed", e);
+                }
+            }
+        });
+    }
+
+    // JdbcTemplate 은 DataSourceUtils 로 커넥션을 얻는다. afterCommit 시점에 아직 묶여 있는 트랜잭션 커넥션이 있으면
+    // 그것을 다시 쓰고, 없으면 풀에서 새로 빌린다. 그룹 모드에서는 리더 스레드의 커넥션으로 실행된다.
+    private void sync() {
+        syncTimer.record(() -> jdbcTemplate.execute("checkpoint sync"));
+    }
+}
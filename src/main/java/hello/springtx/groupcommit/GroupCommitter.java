@@ -0,0 +1,102 @@
+package hello.springtx.groupcommit;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * 동시에 끝난 커밋들을 모아 디스크 동기화(sync) 한 번으로 내구성을 확보한다.
+ * 커밋을 마친 스레드는 awaitDurable() 에서 번호표를 받고, 자기 번호까지 동기화될 때까지 기다린다.
+ * 진행 중인 동기화가 없으면 그 스레드가 리더가 되어 maxWait 동안(또는 batchSize 가 찰 때까지)
+ * 뒤따르는 커밋을 모은 뒤 한 번 동기화하고, 그때까지 번호표를 받은 스레드를 모두 깨운다.
+ * 동기화가 실패하면 리더에게 예외가 전달되고, 기다리던 스레드 중 하나가 다시 리더가 되어 재시도한다.
+ */
+public class GroupCommitter {
+
+    private final Runnable sync;
+    private final long maxWaitNanos;
+    private final int batchSize;
+    private final LongConsumer batchListener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchReady = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+
+    private long requested; // 마지막으로 발급한 번호표
+    private long durable;   // 여기까지 동기화 완료
+    private boolean syncing;
+
+    /**
+     * @param batchListener 동기화 한 번에 묶인 커밋 수를 받는다. (메트릭용)
+     */
+    public GroupCommitter(Runnable sync, Duration maxWait, int batchSize, LongConsumer batchListener) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize 는 1 이상이어야 합니다. batchSize = " + batchSize);
+        }
+        this.sync = sync;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.batchSize = batchSize;
+        this.batchListener = batchListener;
+    }
+
+    public void awaitDurable() {
+        lock.lock();
+        try {
+            long ticket = ++requested;
+            if (requested - durable >= batchSize) {
+                batchReady.signal();
+            }
+            while (durable < ticket) {
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                } else {
+                    lead();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // lock 을 잡은 상태로 호출된다. 동기화하는 동안에는 lock 을 놓아 다른 커밋이 번호표를 받을 수 있게 한다.
+    private void lead() {
+        syncing = true;
+        try {
+            collect();
+            long upTo = requested;
+            lock.unlock();
+            try {
+                sync.run();
+            } finally {
+                lock.lock();
+            }
+            batchListener.accept(upTo - durable);
+            durable = upTo;
+        } finally {
+            syncing = false;
+            synced.signalAll();
+        }
+    }
+
+    private void collect() {
+        long remaining = maxWaitNanos;
+        try {
+            while (requested - durable < batchSize && remaining > 0) {
+                remaining = batchReady.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            // 기다리기를 그만두고 지금까지 모인 만큼 동기화한다.
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long durable() {
+        lock.lock();
+        try {
+            return durable;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
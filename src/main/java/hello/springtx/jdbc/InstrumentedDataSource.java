@@ -0,0 +1,141 @@
+package hello.springtx.jdbc;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * 주 DataSource 를 한 번만 감싸서 등록된 JdbcListener 들에게 커넥션, 문장 이벤트를 순서대로 알린다.
+ * 마감 시각, statement 캐시 추정, 락 대기 샘플링이 각자 DataSource 를 감싸면 프록시가 기능 수만큼 겹치고 순서도 정해지지 않으므로 여기로 모았다.
+ * 커넥션과 문장마다 프록시는 한 겹이다. 리스너가 없으면 감싸지 않은 커넥션을 그대로 돌려준다.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private final ObjectProvider<JdbcListener<?>> listenerProvider;
+    private volatile List<JdbcListener<Object>> listeners;
+
+    public InstrumentedDataSource(DataSource targetDataSource, ObjectProvider<JdbcListener<?>> listenerProvider) {
+        super(targetDataSource);
+        this.listenerProvider = listenerProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrument(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrument(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection instrument(Connection target) throws SQLException {
+        List<JdbcListener<Object>> listeners = listeners();
+        if (listeners.isEmpty()) {
+            return target;
+        }
+
+        Object[] states = new Object[listeners.size()];
+        try {
+            Connection physical = target.unwrap(Connection.class);
+            for (int i = 0; i < states.length; i++) {
+                states[i] = listeners.get(i).acquired(physical);
+            }
+        } catch (SQLException | RuntimeException e) {
+            target.close();
+            throw e;
+        }
+        return proxy(Connection.class, target, (t, method, args) -> invokeConnection(listeners, states, t, method, args));
+    }
+
+    private Object invokeConnection(List<JdbcListener<Object>> listeners, Object[] states,
+                                    Object target, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("close")) {
+            for (int i = 0; i < states.length; i++) {
+                listeners.get(i).released(states[i]);
+            }
+        } else if (name.startsWith("prepare")) {
+            for (int i = 0; i < states.length; i++) {
+                listeners.get(i).preparing(states[i], (String) args[0]);
+            }
+        }
+
+        Object result = invoke(target, method, args);
+        if (result instanceof Statement statement) {
+            // createStatement, prepareStatement, prepareCall 의 반환 타입 그대로 감싼다.
+            return proxy(method.getReturnType(), statement,
+                    (s, m, a) -> invokeStatement(listeners, states, s, m, a));
+        }
+        return result;
+    }
+
+    private Object invokeStatement(List<JdbcListener<Object>> listeners, Object[] states,
+                                   Object target, Method method, Object[] args) throws Throwable {
+        if (!method.getName().startsWith("execute")) {
+            return invoke(target, method, args);
+        }
+
+        Statement statement = (Statement) target;
+        for (int i = 0; i < states.length; i++) {
+            listeners.get(i).executing(states[i], statement);
+        }
+        try {
+            return invoke(target, method, args);
+        } catch (SQLException e) {
+            for (int i = 0; i < states.length; i++) {
+                listeners.get(i).failed(states[i], e);
+            }
+            throw e;
+        } finally {
+            for (int i = 0; i < states.length; i++) {
+                listeners.get(i).executed(states[i], statement);
+            }
+        }
+    }
+
+    /**
+     * 리스너 빈은 처음 커넥션을 빌릴 때 찾는다. BeanPostProcessor 단계에서 다른 빈을 일찍 만들지 않기 위해서다.
+     */
+    @SuppressWarnings("unchecked")
+    private List<JdbcListener<Object>> listeners() {
+        List<JdbcListener<Object>> result = listeners;
+        if (result == null) {
+            result = listenerProvider.orderedStream().map(l -> (JdbcListener<Object>) l).toList();
+            listeners = result;
+        }
+        return result;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, TargetInvoker invoker) {
+        InvocationHandler handler = (proxy, method, args) -> switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> invoker.invoke(target, method, args);
+        };
+        return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    @FunctionalInterface
+    private interface TargetInvoker {
+        Object invoke(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
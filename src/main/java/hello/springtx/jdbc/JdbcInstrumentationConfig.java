@@ -0,0 +1,46 @@
+package hello.springtx.jdbc;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class JdbcInstrumentationConfig {
+
+    // BeanPostProcessor 는 다른 빈보다 먼저 만들어지므로 static 으로 등록한다.
+    @Bean
+    static InstrumentedDataSourcePostProcessor instrumentedDataSourcePostProcessor() {
+        return new InstrumentedDataSourcePostProcessor();
+    }
+
+    /**
+     * 주 DataSource 만 InstrumentedDataSource 로 감싼다.
+     */
+    static class InstrumentedDataSourcePostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+        private ConfigurableListableBeanFactory beanFactory;
+
+        @Override
+        public void setBeanFactory(BeanFactory beanFactory) {
+            this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)
+                    && PrimaryBeans.isPrimary(beanFactory, beanName, DataSource.class)) {
+                // 첫 커넥션은 EntityManagerFactory 를 만드는 도중에 빌린다. 그때 리스너를 찾느라
+                // 다른 FactoryBean(JPA 저장소 등)을 초기화하지 않도록 allowEagerInit 을 끈다.
+                return new InstrumentedDataSource(dataSource,
+                        beanFactory.getBeanProvider(ResolvableType.forClass(JdbcListener.class), false));
+            }
+            return bean;
+        }
+    }
+}
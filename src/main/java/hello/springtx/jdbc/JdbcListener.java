@@ -0,0 +1,51 @@
+package hello.springtx.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * InstrumentedDataSource 가 커넥션과 문장 이벤트를 알려주는 리스너.
+ * 리스너는 빈으로 등록하고, 호출 순서는 &#64;Order(Ordered) 로 정한다.
+ *
+ * @param <S> 빌린 커넥션 하나에 대해 리스너가 들고 있을 상태. 필요 없으면 Void 로 두고 null 을 돌려준다.
+ */
+public interface JdbcListener<S> {
+
+    /**
+     * 커넥션을 빌렸을 때. 풀이 빌려주는 커넥션은 매번 다른 프록시이므로 unwrap 한 물리 커넥션을 넘긴다.
+     * 돌려준 상태는 이 커넥션의 다른 콜백에 넘어온다.
+     */
+    S acquired(Connection physicalConnection) throws SQLException;
+
+    /**
+     * 커넥션을 돌려줄 때.
+     */
+    default void released(S state) {
+    }
+
+    /**
+     * prepareStatement, prepareCall 직전.
+     */
+    default void preparing(S state, String sql) {
+    }
+
+    /**
+     * execute* 직전. 여기서 던진 예외는 실행하지 않고 그대로 호출자에게 간다. (failed 는 부르지 않는다.)
+     */
+    default void executing(S state, Statement statement) throws SQLException {
+    }
+
+    /**
+     * execute* 가 SQLException 으로 실패했을 때.
+     */
+    default void failed(S state, SQLException e) {
+    }
+
+    /**
+     * execute* 가 끝난 뒤. 성공, 실패 모두 부른다. (실패면 failed 다음에)
+     * executing 에서 바꾼 문장 설정을 되돌릴 때 쓴다.
+     */
+    default void executed(S state, Statement statement) {
+    }
+}
@@ -0,0 +1,23 @@
+package hello.springtx.jdbc;
+
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+
+/**
+ * BeanPostProcessor 가 감쌀 빈을 고를 때 쓴다. 테스트 등에서 같은 타입 빈을 더 등록해도 주 빈만 감싼다.
+ */
+public final class PrimaryBeans {
+
+    private PrimaryBeans() {
+    }
+
+    /**
+     * &#64;Primary 이거나 그 타입의 유일한 빈이면 true.
+     */
+    public static boolean isPrimary(ConfigurableListableBeanFactory beanFactory, String beanName, Class<?> type) {
+        if (beanFactory.containsBeanDefinition(beanName) && beanFactory.getBeanDefinition(beanName).isPrimary()) {
+            return true;
+        }
+        String[] candidates = beanFactory.getBeanNamesForType(type, true, false);
+        return candidates.length == 1 && candidates[0].equals(beanName);
+    }
+}
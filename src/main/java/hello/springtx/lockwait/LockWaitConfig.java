@@ -0,0 +1,52 @@
+package hello.springtx.lockwait;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 락 대기 샘플링. springtx.lockwait.enabled=true 일 때만 JDBC 리스너를 등록하고 샘플러를 띄운다.
+ * 부하 테스트(./gradlew loadTest)는 켜고 실행한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "springtx.lockwait.enabled", havingValue = "true")
+public class LockWaitConfig {
+
+    @Bean
+    LockWaitJdbcListener lockWaitJdbcListener(ObjectProvider<LockWaitSampler> sampler) {
+        return new LockWaitJdbcListener(sampler);
+    }
+
+    @Bean
+    LockWaitSampler lockWaitSampler(JdbcTemplate jdbcTemplate, MeterRegistry registry) {
+        return new LockWaitSampler(jdbcTemplate, registry);
+    }
+
+    @Bean
+    LockWaitEndpoint lockWaitEndpoint(LockWaitSampler lockWaitSampler) {
+        return new LockWaitEndpoint(lockWaitSampler);
+    }
+
+    /**
+     * actuator 엔드포인트 lockwaits. 노출하려면 management.endpoints.*.exposure.include 에 추가한다.
+     */
+    @Endpoint(id = "lockwaits")
+    public static class LockWaitEndpoint {
+
+        private final LockWaitSampler sampler;
+
+        LockWaitEndpoint(LockWaitSampler sampler) {
+            this.sampler = sampler;
+        }
+
+        @ReadOperation
+        public LockWaitReport report() {
+            return sampler.report();
+        }
+    }
+}
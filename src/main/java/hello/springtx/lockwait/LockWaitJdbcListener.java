@@ -0,0 +1,50 @@
+package hello.springtx.lockwait;
+
+import hello.springtx.jdbc.JdbcListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 커넥션을 빌린 스레드와 H2 세션 id 를 LockWaitSampler 에 알린다.
+ * 문장을 실행할 때마다 현재 트랜잭션 이름(&#64;Transactional 메서드)을 세션에 적어 두므로,
+ * 샘플러가 다른 스레드에서 락 대기 세션을 보더라도 어느 메서드의 문장인지 알 수 있다.
+ * 데드락(40001), 락 타임아웃(50200)으로 실패한 문장은 그 메서드의 희생자로 센다.
+ */
+class LockWaitJdbcListener implements JdbcListener<LockWaitSampler.Session>, Ordered {
+
+    private final ObjectProvider<LockWaitSampler> sampler;
+
+    LockWaitJdbcListener(ObjectProvider<LockWaitSampler> sampler) {
+        this.sampler = sampler;
+    }
+
+    @Override
+    public LockWaitSampler.Session acquired(Connection physicalConnection) throws SQLException {
+        return sampler.getObject().bind(physicalConnection);
+    }
+
+    @Override
+    public void released(LockWaitSampler.Session session) {
+        session.release();
+    }
+
+    @Override
+    public void executing(LockWaitSampler.Session session, Statement statement) {
+        session.executing(TransactionSynchronizationManager.getCurrentTransactionName());
+    }
+
+    @Override
+    public void failed(LockWaitSampler.Session session, SQLException e) {
+        sampler.getObject().failed(session.txName(), e);
+    }
+
+    @Override
+    public int getOrder() {
+        return 100;
+    }
+}
@@ -0,0 +1,27 @@
+package hello.springtx.lockwait;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 메서드(트랜잭션 이름)별 락 대기 집계. 대기 시간은 샘플 간격으로 추정한 값이다.
+ */
+public record LockWaitReport(Duration sampled, long samples, List<MethodLockWaits> methods) {
+
+    /**
+     * @param waitSamples    이 메서드의 문장이 락을 기다리는 것으로 관찰된 횟수
+     * @param estimatedWait  관찰될 때마다 직전 샘플 이후 시간을 더한 추정 대기 시간
+     * @param maxWait        관찰된 문장 하나의 가장 긴 대기 시간
+     * @param blockedBy      락을 쥐고 있던 쪽 메서드별 관찰 횟수
+     * @param waitingThreads 기다리던 스레드별 관찰 횟수
+     * @param blockingThreads 락을 쥐고 있던 쪽 스레드별 관찰 횟수
+     * @param lastStatement  마지막으로 기다리던 문장
+     * @param lastLockedTables 그때 막고 있던 세션이 락을 쥔 테이블
+     */
+    public record MethodLockWaits(String method, long waitSamples, Duration estimatedWait, Duration maxWait,
+                                  long deadlockVictims, long lockTimeouts, Map<String, Long> blockedBy,
+                                  Map<String, Long> waitingThreads, Map<String, Long> blockingThreads,
+                                  String lastStatement, String lastLockedTables) {
+    }
+}
@@ -0,0 +1,239 @@
+package hello.springtx.lockwait;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * H2 의 INFORMATION_SCHEMA.SESSIONS, LOCKS 를 주기적으로 읽어 락을 기다리는 세션(BLOCKER_ID 가 있는 세션)을 찾고,
+ * LockWaitJdbcListener 가 알려준 세션별 스레드와 트랜잭션 이름으로 어느 &#64;Transactional 메서드가 누구를 기다리는지 모은다.
+ * 메트릭
+ * - springtx.lock.wait.time{method}        : 추정 락 대기 시간(초). 관찰될 때마다 직전 샘플 이후 시간을 더한다.
+ *                                            (그 문장이 기다린 시간보다 길게 더하지 않는다)
+ * - springtx.lock.wait.samples{method}     : 락 대기로 관찰된 횟수
+ * - springtx.lock.deadlock.victims{method} : 데드락으로 실패한 문장 수
+ * - springtx.lock.timeouts{method}         : 락 타임아웃으로 실패한 문장 수
+ * 리포트는 report(), dump() 또는 actuator lockwaits 엔드포인트로 본다.
+ */
+@Slf4j
+public class LockWaitSampler {
+
+    // H2 ErrorCode.DEADLOCK_1, LOCK_TIMEOUT_1
+    static final int DEADLOCK = 40001;
+    static final int LOCK_TIMEOUT = 50200;
+
+    private static final String NO_TRANSACTION = "none";
+    private static final String UNKNOWN = "unknown";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry registry;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong samples = new AtomicLong();
+    private long lastSampleNanos = startNanos;
+
+    private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, MethodStats> methods = new ConcurrentHashMap<>();
+    // 물리 커넥션마다 세션 id 는 바뀌지 않으므로 한 번만 조회한다. 풀에서 빠진 커넥션은 같이 사라진다.
+    private final Map<Connection, Integer> sessionIds = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public LockWaitSampler(JdbcTemplate jdbcTemplate, MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.registry = registry;
+    }
+
+    /**
+     * 커넥션을 빌린 스레드를 세션에 묶는다. 커넥션을 돌려주면 풀린다.
+     */
+    Session bind(Connection physicalConnection) throws SQLException {
+        Integer sessionId = sessionIds.get(physicalConnection);
+        if (sessionId == null) {
+            try (Statement statement = physicalConnection.createStatement();
+                 var rs = statement.executeQuery("select session_id()")) {
+                rs.next();
+                sessionId = rs.getInt(1);
+            }
+            sessionIds.put(physicalConnection, sessionId);
+        }
+        Session session = new Session(sessionId, Thread.currentThread());
+        sessions.put(sessionId, session);
+        return session;
+    }
+
+    void failed(String txName, SQLException e) {
+        if (e.getErrorCode() == DEADLOCK) {
+            statsOf(txName).deadlockVictims.increment();
+            log.info("데드락 희생 method={} : {}", methodName(txName), e.getMessage());
+        } else if (e.getErrorCode() == LOCK_TIMEOUT) {
+            statsOf(txName).lockTimeouts.increment();
+            log.info("락 타임아웃 method={} : {}", methodName(txName), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${springtx.lockwait.sample-interval:100}")
+    public synchronized void sample() {
+        long now = System.nanoTime();
+        long sinceLast = now - lastSampleNanos;
+        lastSampleNanos = now;
+        samples.incrementAndGet();
+
+        List<Map<String, Object>> waiting = jdbcTemplate.queryForList(
+                "select session_id, blocker_id, executing_statement,"
+                        + " datediff('MILLISECOND', executing_statement_start, current_timestamp) as wait_millis"
+                        + " from information_schema.sessions where blocker_id is not null");
+        if (waiting.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, String> lockedTables = jdbcTemplate.queryForList(
+                        "select session_id, table_name, lock_type from information_schema.locks").stream()
+                .collect(Collectors.groupingBy(row -> ((Number) row.get("SESSION_ID")).intValue(),
+                        Collectors.mapping(row -> row.get("TABLE_NAME") + "(" + row.get("LOCK_TYPE") + ")",
+                                Collectors.joining(", "))));
+
+        for (Map<String, Object> row : waiting) {
+            Session waiter = sessions.get(((Number) row.get("SESSION_ID")).intValue());
+            int blockerId = ((Number) row.get("BLOCKER_ID")).intValue();
+            Session blocker = sessions.get(blockerId);
+            Number waitMillis = (Number) row.get("WAIT_MILLIS");
+
+            MethodStats stats = statsOf(waiter == null ? UNKNOWN : waiter.txName);
+            String waiterThread = waiter == null ? UNKNOWN : waiter.thread.getName();
+            String blockerThread = blocker == null ? UNKNOWN : blocker.thread.getName();
+            stats.waitSamples.increment();
+            // 첫 샘플이나 간격이 벌어진 샘플에서 실제로 기다린 시간보다 많이 더하지 않는다.
+            stats.waitNanos.add(waitMillis == null ? sinceLast
+                    : Math.min(sinceLast, TimeUnit.MILLISECONDS.toNanos(waitMillis.longValue())));
+            stats.maxWaitMillis.accumulateAndGet(waitMillis == null ? 0 : waitMillis.longValue(), Math::max);
+            stats.blockedBy.computeIfAbsent(blocker == null ? UNKNOWN : methodName(blocker.txName),
+                    m -> new LongAdder()).increment();
+            stats.waitingThreads.computeIfAbsent(waiterThread, t -> new LongAdder()).increment();
+            stats.blockingThreads.computeIfAbsent(blockerThread, t -> new LongAdder()).increment();
+            stats.lastStatement = (String) row.get("EXECUTING_STATEMENT");
+            stats.lastLockedTables = lockedTables.getOrDefault(blockerId, "");
+
+            log.debug("락 대기 method={} thread={} blockedBy={} thread={} statement={}",
+                    stats.method, waiterThread, blocker == null ? UNKNOWN : methodName(blocker.txName),
+                    blockerThread, stats.lastStatement);
+        }
+    }
+
+    public LockWaitReport report() {
+        List<LockWaitReport.MethodLockWaits> result = methods.values().stream()
+                .map(MethodStats::snapshot)
+                .sorted(Comparator.comparing(LockWaitReport.MethodLockWaits::estimatedWait).reversed())
+                .toList();
+        return new LockWaitReport(Duration.ofNanos(System.nanoTime() - startNanos), samples.get(), result);
+    }
+
+    public String dump() {
+        LockWaitReport report = report();
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
+        out.printf("lock waits : sampled=%ds samples=%d%n", report.sampled().toSeconds(), report.samples());
+        out.printf("%-50s %8s %10s %10s %9s %9s%n", "method", "samples", "wait(ms)", "max(ms)", "deadlock", "timeout");
+        for (LockWaitReport.MethodLockWaits m : report.methods()) {
+            out.printf("%-50s %8d %10d %10d %9d %9d%n", m.method(), m.waitSamples(), m.estimatedWait().toMillis(),
+                    m.maxWait().toMillis(), m.deadlockVictims(), m.lockTimeouts());
+            if (!m.blockedBy().isEmpty()) {
+                out.printf("    blocked by %s%n", m.blockedBy());
+                out.printf("    threads        : %s blocked by %s%n", m.waitingThreads(), m.blockingThreads());
+                out.printf("    last statement : %s%n", m.lastStatement());
+                out.printf("    blocker locks  : %s%n", m.lastLockedTables());
+            }
+        }
+        out.flush();
+        return buffer.toString();
+    }
+
+    private MethodStats statsOf(String txName) {
+        return methods.computeIfAbsent(methodName(txName), MethodStats::new);
+    }
+
+    private static String methodName(String txName) {
+        return txName != null ? txName : NO_TRANSACTION;
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counts) {
+        Map<String, Long> result = new TreeMap<>();
+        counts.forEach((key, count) -> result.put(key, count.sum()));
+        return result;
+    }
+
+    /**
+     * 빌린 커넥션 하나. 문장을 실행할 때마다 트랜잭션 이름이 바뀐다.
+     */
+    class Session {
+        private final int id;
+        private final Thread thread;
+        private volatile String txName;
+
+        Session(int id, Thread thread) {
+            this.id = id;
+            this.thread = thread;
+        }
+
+        void executing(String txName) {
+            this.txName = txName;
+        }
+
+        String txName() {
+            return txName;
+        }
+
+        void release() {
+            sessions.remove(id, this);
+        }
+    }
+
+    private class MethodStats {
+        private final String method;
+        private final LongAdder waitSamples = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final AtomicLong maxWaitMillis = new AtomicLong();
+        private final LongAdder deadlockVictims = new LongAdder();
+        private final LongAdder lockTimeouts = new LongAdder();
+        private final Map<String, LongAdder> blockedBy = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> waitingThreads = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> blockingThreads = new ConcurrentHashMap<>();
+        private volatile String lastStatement;
+        private volatile String lastLockedTables;
+
+        MethodStats(String method) {
+            this.method = method;
+            FunctionCounter.builder("springtx.lock.wait.time", waitNanos, n -> n.sum() / 1e9)
+                    .baseUnit("seconds").tag("method", method).register(registry);
+            FunctionCounter.builder("springtx.lock.wait.samples", waitSamples, LongAdder::sum)
+                    .tag("method", method).register(registry);
+            FunctionCounter.builder("springtx.lock.deadlock.victims", deadlockVictims, LongAdder::sum)
+                    .tag("method", method).register(registry);
+            FunctionCounter.builder("springtx.lock.timeouts", lockTimeouts, LongAdder::sum)
+                    .tag("method", method).register(registry);
+        }
+
+        LockWaitReport.MethodLockWaits snapshot() {
+            return new LockWaitReport.MethodLockWaits(method, waitSamples.sum(), Duration.ofNanos(waitNanos.sum()),
+                    Duration.ofMillis(maxWaitMillis.get()), deadlockVictims.sum(), lockTimeouts.sum(), sums(blockedBy),
+                    sums(waitingThreads), sums(blockingThreads), lastStatement, lastLockedTables);
+        }
+    }
+}
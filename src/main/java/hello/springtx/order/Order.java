@@ -3,12 +3,13 @@ package hello.springtx.order;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity // JPA
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_change_seq", columnList = "changeSeq"))
 @Getter
 @Setter
 public class Order {
@@ -19,4 +20,6 @@ public class Order {
 
     private String userName; // 정상, 예외, 잔고부족
     private String payStatus; // 대기, 완료
+    private long amount = 1_000; // 결제 금액
+    private Long changeSeq; // 변경 피드 번호. 커밋할 때마다 OrderChangeSequencer 가 증가시킨다.
 }
@@ -0,0 +1,7 @@
+package hello.springtx.order;
+
+/**
+ * 변경 피드의 한 항목. changeSeq 순서로 전달된다.
+ */
+public record OrderChange(Long id, String userName, String payStatus, long changeSeq) {
+}
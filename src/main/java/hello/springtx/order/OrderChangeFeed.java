@@ -0,0 +1,46 @@
+package hello.springtx.order;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 주문 변경 피드. 소비자는 마지막으로 받은 워터마크를 넘겨 그 이후의 변경만 페이지 단위로 받는다.
+ * change_seq 인덱스 범위 조회라 주문 테이블 전체를 스캔하지 않는다.
+ * <pre>
+ * long watermark = 0;
+ * OrderChangePage page;
+ * do {
+ *     page = orderChangeFeed.changesAfter(watermark, 500);
+ *     handle(page.changes());
+ *     watermark = page.nextWatermark();
+ * } while (page.hasMore());
+ * </pre>
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderChangeFeed {
+
+    private final OrderRepository orderRepository;
+    private final OrderChangeSequencer sequencer;
+
+    @Transactional(readOnly = true)
+    public OrderChangePage changesAfter(long watermark, int limit) {
+        long upTo = sequencer.safeWatermark();
+        if (upTo <= watermark) {
+            return new OrderChangePage(List.of(), watermark, false);
+        }
+
+        // 한 건 더 읽어서 다음 페이지가 있는지 확인한다.
+        List<OrderChange> changes = orderRepository.findChanges(watermark, upTo, PageRequest.ofSize(limit + 1));
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+        long next = changes.isEmpty() ? watermark : changes.get(changes.size() - 1).changeSeq();
+        return new OrderChangePage(changes, next, hasMore);
+    }
+}
@@ -0,0 +1,10 @@
+package hello.springtx.order;
+
+import java.util.List;
+
+/**
+ * @param nextWatermark 다음 요청에 넘길 워터마크. 받은 변경이 없으면 요청한 워터마크 그대로
+ * @param hasMore       바로 다시 요청하면 더 받을 변경이 있는지
+ */
+public record OrderChangePage(List<OrderChange> changes, long nextWatermark, boolean hasMore) {
+}
@@ -0,0 +1,96 @@
+package hello.springtx.order;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 주문이 바뀐 트랜잭션마다 커밋 직전에 단조 증가하는 변경 번호(changeSeq)를 붙인다.
+ * 번호를 받은 순서와 커밋되는 순서는 다를 수 있으므로, 아직 커밋이 끝나지 않은 번호 중 가장 작은 번호 바로 앞까지만
+ * 읽어도 안전한 워터마크(safeWatermark)로 알려준다. 그래야 소비자가 늦게 커밋된 작은 번호를 건너뛰지 않는다.
+ * 번호는 메모리에서 발급하므로 애플리케이션 인스턴스가 하나일 때를 전제로 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderChangeSequencer {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private long last = -1; // -1 : 아직 DB 에서 읽지 않음
+
+    /**
+     * 현재 트랜잭션이 커밋될 때 order 에 새 변경 번호를 붙인다.
+     */
+    public void track(Order order) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("주문 변경 번호는 트랜잭션 안에서만 발급할 수 있습니다.");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long seq;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                seq = next();
+                order.setChangeSeq(seq); // 커밋 시 flush 로 반영된다.
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (seq > 0) {
+                    inFlight.remove(seq);
+                }
+            }
+        });
+    }
+
+    /**
+     * 벌크 UPDATE 용. 현재 트랜잭션에 연속된 변경 번호 count 개를 한 번에 발급하고 첫 번호를 반환한다.
+     * 블록의 첫 번호만 진행 중으로 두어도 safeWatermark 는 블록 전체를 넘지 않는다.
+     */
+    public long reserve(long count) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("주문 변경 번호는 트랜잭션 안에서만 발급할 수 있습니다.");
+        }
+        long first = next(count);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                inFlight.remove(first);
+            }
+        });
+        return first;
+    }
+
+    /**
+     * 이 번호까지는 커밋이 모두 끝났거나 롤백되었다.
+     */
+    public synchronized long safeWatermark() {
+        initialize();
+        return inFlight.isEmpty() ? last : inFlight.first() - 1;
+    }
+
+    // 발급과 진행 중 등록을 한 번에 해야 safeWatermark 가 그 사이를 보지 않는다.
+    private long next() {
+        return next(1);
+    }
+
+    private synchronized long next(long count) {
+        initialize();
+        long first = last + 1;
+        last += count;
+        inFlight.add(first);
+        return first;
+    }
+
+    private void initialize() {
+        if (last < 0) {
+            Long max = jdbcTemplate.queryForObject("select coalesce(max(change_seq), 0) from orders", Long.class);
+            last = max == null ? 0 : max;
+        }
+    }
+}
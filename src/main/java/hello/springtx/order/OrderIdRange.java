@@ -0,0 +1,11 @@
+package hello.springtx.order;
+
+/**
+ * 주문 id 범위 [min, max] 와 그 안에 해당하는 주문 수. 해당하는 주문이 없으면 min, max 는 null 이고 count 는 0.
+ */
+public record OrderIdRange(Long min, Long max, Long count) {
+
+    public boolean isEmpty() {
+        return min == null;
+    }
+}
@@ -1,6 +1,59 @@
 package hello.springtx.order;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // (after, upTo] 범위의 변경을 changeSeq 순서로. idx_orders_change_seq 를 탄다.
+    @Query("select new hello.springtx.order.OrderChange(o.id, o.userName, o.payStatus, o.changeSeq)"
+            + " from Order o where o.changeSeq > :after and o.changeSeq <= :upTo order by o.changeSeq")
+    List<OrderChange> findChanges(@Param("after") long after, @Param("upTo") long upTo, Pageable pageable);
+
+    // 읽기 전용 엔티티. 스냅샷을 두지 않고 조회 전에 자동 flush 하지 않는다. 값을 바꿔도 반영되지 않는다.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT")
+    })
+    @Query("select o from Order o where o.payStatus = :payStatus and o.id > :after order by o.id")
+    List<Order> findReadOnlyByPayStatus(@Param("payStatus") String payStatus, @Param("after") long after, Pageable pageable);
+
+    // 조회 전용 프로젝션. id 가 after 보다 큰 주문을 id 순서로. (keyset 페이징)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("select new hello.springtx.order.OrderView(o.id, o.userName, o.payStatus, o.amount)"
+            + " from Order o where o.payStatus = :payStatus and o.id > :after order by o.id")
+    List<OrderView> findViewsByPayStatus(@Param("payStatus") String payStatus, @Param("after") long after, Pageable pageable);
+
+    // 상태 전환할 다음 keyset 페이지의 id. 엔티티를 읽지 않는다.
+    @Query("select o.id from Order o where o.payStatus = :payStatus and o.id > :after order by o.id")
+    List<Long> findIdsByPayStatus(@Param("payStatus") String payStatus, @Param("after") long after, Pageable pageable);
+
+    /**
+     * [firstId, lastId] 범위에서 from 상태인 주문 중 id 순서로 앞의 count 건을 한 번의 MERGE 로 to 상태로 바꾼다.
+     * 변경 번호는 범위 안의 순번(row_number)으로 seqBase + 1 부터 seqBase + count 까지 붙이므로 count 개만 발급하면 된다.
+     * 세어 본 뒤에 커밋된 주문이 더 있어도 count 건을 넘겨 바꾸지 않는다. (발급한 번호 밖으로 나가지 않는다)
+     * 먼저 flush 한다. 영속성 컨텍스트는 비우지 않는다. 이미 읽어 둔 주문은 OrderStatusTransitions 가 골라서 다시 읽는다.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(nativeQuery = true, value = "merge into orders o"
+            + " using (select id, row_number() over (order by id) as rn from orders"
+            + "        where pay_status = :from and id between :firstId and :lastId) s"
+            + " on o.id = s.id and s.rn <= :count"
+            + " when matched and o.pay_status = :from then update set pay_status = :to, change_seq = :seqBase + s.rn")
+    int updatePayStatus(@Param("from") String from, @Param("to") String to,
+                        @Param("firstId") long firstId, @Param("lastId") long lastId,
+                        @Param("count") long count, @Param("seqBase") long seqBase);
+
+    // [firstId, lastId] 범위에서 from 상태인 주문 id 의 최소, 최대와 건수. 없으면 null, null, 0.
+    @Query("select new hello.springtx.order.OrderIdRange(min(o.id), max(o.id), count(o)) from Order o"
+            + " where o.payStatus = :payStatus and o.id between :firstId and :lastId")
+    OrderIdRange findIdRange(@Param("payStatus") String payStatus, @Param("firstId") long firstId, @Param("lastId") long lastId);
 }
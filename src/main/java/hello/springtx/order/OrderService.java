@@ -1,5 +1,7 @@
 package hello.springtx.order;
 
+import hello.springtx.account.BalanceReservations;
+import hello.springtx.groupcommit.DurableCommit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -11,19 +13,25 @@ import org.springframework.transaction.annotation.Transactional;
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final BalanceReservations balanceReservations;
+    private final DurableCommit durableCommit;
+    private final OrderChangeSequencer orderChangeSequencer;
 
     // JPA는 트랜잭션 커밋 시점에 Order 데이터를 DB에 반영한다.
     @Transactional
     public void order(Order order) throws NotEnoughMoneyException {
         log.info("order 호출");
+        durableCommit.awaitAfterCommit(); // durable 프로파일에서는 디스크 동기화까지 기다린 뒤 반환
         orderRepository.save(order);
+        orderChangeSequencer.track(order); // 커밋 시 변경 피드 번호 부여
 
         log.info("결제 프로세스 진입");
         if (order.getUserName().equals("예외")) {
             log.info("시스템 예외 발생");
             throw new RuntimeException("시스템 예외");
 
-        } else if (order.getUserName().equals("잔고부족")) {
+        } else if (!balanceReservations.reserve(order.getUserName(), order.getAmount())) {
+            // 계좌 행에 락을 걸지 않고 메모리 예약 계층에서 잔고를 확인한다. 롤백되면 예약도 되돌린다.
             log.info("잔고 부족 비즈니스 예외 발생");
             order.setPayStatus("대기");
             throw new NotEnoughMoneyException("잔고가 부족합니다.");
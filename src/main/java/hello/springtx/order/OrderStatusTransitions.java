@@ -0,0 +1,102 @@
+package hello.springtx.order;
+
+import hello.springtx.deadline.Deadline;
+import hello.springtx.programmatic.TxDefinition;
+import hello.springtx.programmatic.TxExecutor;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 주문 결제 상태의 벌크 전환. (예: 대기 -> 완료 정산)
+ * 주문을 한 건씩 읽어 setPayStatus 하면 더티 체킹으로 건마다 UPDATE 가 나간다.
+ * 여기서는 id 범위마다 UPDATE 한 번으로 바꾸고 바뀐 건수를 돌려준다. 변경 피드 번호(changeSeq)도 같은 UPDATE 에서 붙인다.
+ * 변경 번호는 바꿀 주문 수만큼만 발급한다. (id 범위의 크기와 무관하다)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderStatusTransitions {
+
+    private static final TxDefinition PAGE = TxDefinition.REQUIRES_NEW.named("OrderStatusTransitions.page");
+
+    private final OrderRepository orderRepository;
+    private final OrderChangeSequencer orderChangeSequencer;
+    private final TxExecutor txExecutor;
+    private final EntityManager em;
+
+    /**
+     * 현재 트랜잭션에서 [firstId, lastId] 범위의 from 상태 주문을 to 상태로 바꾼다.
+     * 이 트랜잭션에서 이미 읽어 둔 범위 안의 주문은 DB 에서 다시 읽어 바뀐 상태를 보여준다.
+     * 다른 엔티티는 그대로 관리되므로 OrderChangeSequencer.track 으로 등록한 주문도 커밋 때 번호를 받는다.
+     */
+    @Transactional
+    public int transition(String from, String to, long firstId, long lastId) {
+        OrderIdRange range = orderRepository.findIdRange(from, firstId, lastId);
+        if (range.isEmpty()) {
+            return 0;
+        }
+        return update(from, to, range.min(), range.max(), range.count());
+    }
+
+    /**
+     * from 상태인 주문 전체를 id 순서로 pageSize 건씩 to 상태로 바꾼다.
+     * 페이지마다 따로 커밋하므로 행 락을 오래 잡지 않는다. 중간에 실패해도 커밋된 페이지는 남고, 다시 호출하면 남은 주문부터 이어서 바꾼다.
+     * 배치 작업이므로 페이지 트랜잭션에 기본 timeout 을 적용하지 않는다.
+     */
+    public long transitionAll(String from, String to, int pageSize) {
+        long total = 0;
+        long after = 0;
+        try (Deadline.Scope scope = Deadline.unbounded()) {
+            TransitionPage page;
+            while ((page = txExecutor.execute(PAGE, after, a -> transitionPage(from, to, a, pageSize))) != null) {
+                total += page.updated();
+                after = page.lastId();
+            }
+        }
+        log.info("주문 상태 일괄 전환 완료 {} -> {} updated={}", from, to, total);
+        return total;
+    }
+
+    private TransitionPage transitionPage(String from, String to, long after, int pageSize) {
+        List<Long> ids = orderRepository.findIdsByPayStatus(from, after, PageRequest.ofSize(pageSize));
+        if (ids.isEmpty()) {
+            return null;
+        }
+        long lastId = ids.get(ids.size() - 1);
+        return new TransitionPage(update(from, to, ids.get(0), lastId, ids.size()), lastId);
+    }
+
+    private int update(String from, String to, long firstId, long lastId, long count) {
+        // 바꿀 주문 수만큼 연속된 번호를 발급하고, 범위 안의 순번대로 붙인다.
+        long firstSeq = orderChangeSequencer.reserve(count);
+        int updated = orderRepository.updatePayStatus(from, to, firstId, lastId, count, firstSeq - 1);
+        refreshManagedOrders(firstId, lastId);
+        log.info("주문 상태 전환 {} -> {} id=[{}, {}] updated={}", from, to, firstId, lastId, updated);
+        return updated;
+    }
+
+    /**
+     * 벌크 UPDATE 는 영속성 컨텍스트를 거치지 않으므로, 이미 읽어 둔 주문 중 범위 안의 것만 DB 에서 다시 읽는다.
+     * 컨텍스트 전체를 비우면(clear) 호출한 쪽이 들고 있는 다른 엔티티까지 준영속이 되어 이후 변경이 반영되지 않는다.
+     */
+    private void refreshManagedOrders(long firstId, long lastId) {
+        Session session = em.unwrap(Session.class);
+        for (EntityKey key : List.copyOf(session.getStatistics().getEntityKeys())) {
+            if (key.getEntityName().equals(Order.class.getName())
+                    && key.getIdentifier() instanceof Long id && id >= firstId && id <= lastId) {
+                session.refresh(session.getReference(Order.class, id));
+            }
+        }
+    }
+
+    private record TransitionPage(int updated, long lastId) {
+    }
+}
@@ -0,0 +1,7 @@
+package hello.springtx.order;
+
+/**
+ * 조회 전용 주문 프로젝션. 영속성 컨텍스트에 올라가지 않는다.
+ */
+public record OrderView(Long id, String userName, String payStatus, long amount) {
+}
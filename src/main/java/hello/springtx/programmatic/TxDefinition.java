@@ -0,0 +1,89 @@
+package hello.springtx.programmatic;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 불변 트랜잭션 정의. 같은 속성 조합은 한 인스턴스를 재사용하므로
+ * 트랜잭션마다 DefaultTransactionDefinition 을 new 할 필요가 없다.
+ * <pre>
+ * private static final TxDefinition READ = TxDefinition.of(Propagation.REQUIRED, Isolation.DEFAULT, true, 5);
+ * </pre>
+ */
+public final class TxDefinition implements TransactionDefinition {
+
+    private static final ConcurrentMap<Long, TxDefinition> CACHE = new ConcurrentHashMap<>();
+
+    public static final TxDefinition REQUIRED = of(Propagation.REQUIRED, Isolation.DEFAULT, false, TIMEOUT_DEFAULT);
+    public static final TxDefinition REQUIRES_NEW = of(Propagation.REQUIRES_NEW, Isolation.DEFAULT, false, TIMEOUT_DEFAULT);
+    public static final TxDefinition READ_ONLY = of(Propagation.REQUIRED, Isolation.DEFAULT, true, TIMEOUT_DEFAULT);
+
+    private final int propagationBehavior;
+    private final int isolationLevel;
+    private final boolean readOnly;
+    private final int timeout;
+    private final String name;
+
+    private TxDefinition(int propagationBehavior, int isolationLevel, boolean readOnly, int timeout, String name) {
+        this.propagationBehavior = propagationBehavior;
+        this.isolationLevel = isolationLevel;
+        this.readOnly = readOnly;
+        this.timeout = timeout;
+        this.name = name;
+    }
+
+    /**
+     * 속성 조합별로 캐시된 정의를 돌려준다. timeout 은 초 단위, TIMEOUT_DEFAULT(-1) 이면 기본값.
+     */
+    public static TxDefinition of(Propagation propagation, Isolation isolation, boolean readOnly, int timeout) {
+        if (timeout < TIMEOUT_DEFAULT) {
+            throw new IllegalArgumentException("timeout 은 -1 이상이어야 합니다. timeout = " + timeout);
+        }
+        long key = ((long) timeout << 32) | ((long) propagation.value() << 16)
+                | ((long) (isolation.value() + 1) << 1) | (readOnly ? 1 : 0);
+        return CACHE.computeIfAbsent(key, k ->
+                new TxDefinition(propagation.value(), isolation.value(), readOnly, timeout, null));
+    }
+
+    /**
+     * 트랜잭션 이름을 붙인 정의. 캐시하지 않으므로 상수로 만들어 두고 쓴다.
+     */
+    public TxDefinition named(String name) {
+        return new TxDefinition(propagationBehavior, isolationLevel, readOnly, timeout, name);
+    }
+
+    @Override
+    public int getPropagationBehavior() {
+        return propagationBehavior;
+    }
+
+    @Override
+    public int getIsolationLevel() {
+        return isolationLevel;
+    }
+
+    @Override
+    public int getTimeout() {
+        return timeout;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "TxDefinition[propagation=" + propagationBehavior + ", isolation=" + isolationLevel
+                + ", readOnly=" + readOnly + ", timeout=" + timeout + ", name=" + name + "]";
+    }
+}
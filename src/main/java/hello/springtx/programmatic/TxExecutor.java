@@ -0,0 +1,66 @@
+package hello.springtx.programmatic;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.CallbackPreferringPlatformTransactionManager;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 람다로 쓰는 가벼운 프로그래밍 방식 트랜잭션 실행기. 동작은 TransactionTemplate 과 같다.
+ * 런타임 예외, 에러가 나면 롤백하고 그대로 던진다. 그 외에는 커밋한다.
+ *
+ * 반복문에서는 인자를 따로 넘기는 execute(definition, arg, action) 를 쓰면
+ * 람다가 바깥 변수를 캡처하지 않아 호출마다 람다 객체가 생기지 않는다.
+ * <pre>
+ * txExecutor.execute(TxDefinition.READ_ONLY, username, memberRepository::find)  // 캡처 없음
+ * </pre>
+ */
+@Component
+@RequiredArgsConstructor
+public class TxExecutor {
+
+    private final PlatformTransactionManager txManager;
+
+    public <A, R> R execute(TxDefinition definition, A arg, Function<? super A, ? extends R> action) {
+        if (txManager instanceof CallbackPreferringPlatformTransactionManager callbackManager) {
+            return callbackManager.execute(definition, status -> action.apply(arg));
+        }
+
+        TransactionStatus status = txManager.getTransaction(definition);
+        R result;
+        try {
+            result = action.apply(arg);
+        } catch (RuntimeException | Error e) {
+            rollbackOnException(status, e);
+            throw e;
+        }
+        txManager.commit(status);
+        return result;
+    }
+
+    public <R> R execute(TxDefinition definition, Supplier<? extends R> action) {
+        return execute(definition, action, Supplier::get);
+    }
+
+    public void run(TxDefinition definition, Runnable action) {
+        execute(definition, action, TxExecutor::runAndReturnNull);
+    }
+
+    private void rollbackOnException(TransactionStatus status, Throwable ex) {
+        try {
+            txManager.rollback(status);
+        } catch (RuntimeException | Error rollbackEx) {
+            rollbackEx.addSuppressed(ex);
+            throw rollbackEx;
+        }
+    }
+
+    private static Object runAndReturnNull(Runnable action) {
+        action.run();
+        return null;
+    }
+}
@@ -0,0 +1,87 @@
+package hello.springtx.propagation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 문자열 Bloom 필터. mightContain 이 false 면 넣은 적이 없는 값이다. true 는 오탐일 수 있다.
+ * 비트는 AtomicLongArray 에 두어 여러 스레드가 잠금 없이 넣고 조회한다. 한 번 넣은 값은 뺄 수 없다.
+ */
+class BloomFilter {
+
+    private final long bitSize;
+    private final int hashCount;
+    private final AtomicLongArray words;
+
+    /**
+     * @param expectedInsertions 예상 원소 수
+     * @param fpp                예상 원소 수일 때 목표 오탐률
+     */
+    BloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bitSize = Math.max(64, (m + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+        this.words = new AtomicLongArray(Math.toIntExact(bitSize / 64));
+    }
+
+    void put(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = words.get(word)) & mask) == 0
+                    && !words.compareAndSet(word, current, current | mask)) {
+                // 다른 스레드가 같은 워드를 바꿨으면 다시 시도
+            }
+        }
+    }
+
+    boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 켜진 비트 비율로 추정한 현재 오탐률. 비트 배열 전체를 훑으므로 메트릭 수집 때만 쓴다.
+     */
+    double expectedFpp() {
+        long setBits = 0;
+        for (int i = 0; i < words.length(); i++) {
+            setBits += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) setBits / bitSize, hashCount);
+    }
+
+    long sizeInBytes() {
+        return bitSize / 8;
+    }
+
+    // FNV-1a 64 후 섞기
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -3,22 +3,53 @@ package hello.springtx.propagation;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
+
+/*
+log 테이블은 현재 쌓이는 파티션이다. 날짜가 바뀌면 LogPartitions 가 log 테이블을 log_pyyyyMMdd_n 으로 이름만 바꿔 넘기고
+빈 log 테이블로 교체한다. 보관 기간이 지나면 파티션을 테이블째 삭제한다. (created_at 인덱스는 교체할 로그가 있는지 볼 때 쓴다)
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_log_message", columnList = "message"),
+        @Index(name = "idx_log_created_at", columnList = "createdAt")})
+@NamedQuery(name = Log.FIND_BY_MESSAGE, query = "select l from Log l where l.message = :message")
+@NamedQuery(name = Log.FIND_VIEW_BY_MESSAGE,
+        query = "select new hello.springtx.propagation.LogView(l.id, l.message, l.createdAt) from Log l where l.message = :message")
+@NamedQuery(name = Log.FIND_VIEWS,
+        query = "select new hello.springtx.propagation.LogView(l.id, l.message, l.createdAt) from Log l where l.id > :after order by l.id")
 @Getter @Setter
 public class Log {
 
+    public static final String FIND_BY_MESSAGE = "Log.findByMessage";
+    public static final String FIND_VIEW_BY_MESSAGE = "Log.findViewByMessage";
+    public static final String FIND_VIEWS = "Log.findViews";
+
     @Id @GeneratedValue
     private Long id;
 
     private String message;
 
+    private LocalDateTime createdAt;
+
     public Log() {
     }
 
     public Log(String message) {
         this.message = message;
     }
+
+    @PrePersist
+    void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
 }
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -21,17 +22,57 @@ public class LogRepository {
     public void save(Log logMessage) {
         log.info("log 저장");
         em.persist(logMessage);
+        check(logMessage);
+    }
+
+    /**
+     * 현재 트랜잭션에 그대로 저장한다. MemberJoinBatcher 가 여러 가입을 한 트랜잭션에 묶을 때 쓴다.
+     * 예외가 나도 트랜잭션을 rollback-only 로 만들지 않도록 &#64;Transactional 을 붙이지 않는다.
+     * save 와 달리 persist 하기 전에 확인하므로 저장할 수 없는 로그는 영속성 컨텍스트에 남지 않는다.
+     */
+    public void persist(Log logMessage) {
+        check(logMessage);
+        em.persist(logMessage);
+    }
 
-        // 메시지에 "로그예외"라는 문장이 포함되어 있으면 RuntimeException 던진다.
+    // 메시지에 "로그예외"라는 문장이 포함되어 있으면 RuntimeException 던진다.
+    public void check(Log logMessage) {
         if (logMessage.getMessage().contains("로그예외")) {
             log.info("log 저장시 예외 발생");
             throw new RuntimeException("예외 발생");
         }
     }
 
+    /**
+     * 현재 log 테이블만 찾는다. LogRetentionJob 이 파티션으로 넘긴 로그는 LogPartitions.find 로 찾는다.
+     * 다른 조회(findReadOnly, findView, findViews)도 현재 log 테이블만 본다.
+     */
     public Optional<Log> find(String message) {
-        return em.createQuery("select l from Log l where l.message = :message", Log.class)
+        return em.createNamedQuery(Log.FIND_BY_MESSAGE, Log.class)
+                .setParameter("message", message)
+                .getResultList().stream().findAny();
+    }
+
+    /**
+     * 읽기 전용 엔티티 조회. 더티 체킹, flush 대상이 아니다. (MemberRepository.findReadOnly 참고)
+     */
+    public Optional<Log> findReadOnly(String message) {
+        return ReadOnlyQueries.readOnly(em.createNamedQuery(Log.FIND_BY_MESSAGE, Log.class))
                 .setParameter("message", message)
                 .getResultList().stream().findAny();
     }
+
+    public Optional<LogView> findView(String message) {
+        return ReadOnlyQueries.noFlush(em.createNamedQuery(Log.FIND_VIEW_BY_MESSAGE, LogView.class))
+                .setParameter("message", message)
+                .getResultList().stream().findAny();
+    }
+
+    // id 가 after 보다 큰 로그를 id 순서로 limit 건. (keyset 페이징)
+    public List<LogView> findViews(long after, int limit) {
+        return ReadOnlyQueries.noFlush(em.createNamedQuery(Log.FIND_VIEWS, LogView.class))
+                .setParameter("after", after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
 }
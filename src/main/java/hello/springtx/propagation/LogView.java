@@ -0,0 +1,9 @@
+package hello.springtx.propagation;
+
+import java.time.LocalDateTime;
+
+/**
+ * 조회 전용 로그 프로젝션. 영속성 컨텍스트에 올라가지 않는다.
+ */
+public record LogView(Long id, String message, LocalDateTime createdAt) {
+}
@@ -3,14 +3,25 @@ package hello.springtx.propagation;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.NamedQuery;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
+@NamedQuery(name = Member.FIND_BY_USERNAME, query = "select m from Member m where m.username = :username")
+@NamedQuery(name = Member.FIND_VIEW_BY_USERNAME,
+        query = "select new hello.springtx.propagation.MemberView(m.id, m.username) from Member m where m.username = :username")
+@NamedQuery(name = Member.FIND_VIEWS,
+        query = "select new hello.springtx.propagation.MemberView(m.id, m.username) from Member m where m.id > :after order by m.id")
 @Getter
 @Setter
 public class Member {
 
+    // 이름 있는 쿼리는 애플리케이션 시작 시 검증, 컴파일된다. (hibernate.query.startup_check)
+    public static final String FIND_BY_USERNAME = "Member.findByUsername";
+    public static final String FIND_VIEW_BY_USERNAME = "Member.findViewByUsername";
+    public static final String FIND_VIEWS = "Member.findViews";
+
     @Id
     @GeneratedValue
     private Long id;
@@ -0,0 +1,292 @@
+package hello.springtx.propagation;
+
+import hello.springtx.programmatic.TxDefinition;
+import hello.springtx.programmatic.TxExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 동시에 들어온 회원 가입(joinV1)을 잠깐 모아 한 트랜잭션에서 처리한다. springtx.member.join-batch.enabled=true 일 때만.
+ * 첫 요청부터 max-wait 동안, 최대 max-size 건을 모아 회원과 로그를 JDBC 배치 INSERT 로 한 번에 커밋한다.
+ * 요청마다 결과는 따로 돌려준다.
+ * - "로그예외" 처럼 로그를 저장할 수 없는 요청은 persist 하기 전에 걸러 그 요청만 실패시킨다. (joinV1 처럼 회원도 남지 않는다.)
+ * - 커밋이 실패하면 남은 요청을 한 건씩 각자의 트랜잭션으로 다시 실행한다.
+ * 꺼져 있거나 호출한 쪽에 이미 트랜잭션이 있으면 그대로 MemberService.joinV1 을 호출한다.
+ * 결과는 result-timeout 까지만 기다린다. 종료(stop) 뒤에 들어온 요청은 받지 않는다.
+ * 메트릭
+ * - springtx.member.join.batch.commits : 배치 트랜잭션 커밋 수 (초당 커밋 수는 이 카운터의 증가율)
+ * - springtx.member.join.batch.size    : 커밋한 배치 크기
+ * - springtx.member.join.batch.wait    : 요청이 배치에 실리기까지 기다린 시간 (배치로 늘어난 지연)
+ * - springtx.member.join.batch.retried : 배치 커밋 실패로 한 건씩 다시 실행한 요청 수
+ */
+@Slf4j
+@Component
+public class MemberJoinBatcher {
+
+    private static final TxDefinition BATCH = TxDefinition.REQUIRES_NEW.named("MemberJoinBatcher.batch");
+    private static final TxDefinition SINGLE = TxDefinition.REQUIRES_NEW.named("MemberJoinBatcher.single");
+
+    private final MemberService memberService;
+    private final MemberRepository memberRepository;
+    private final LogRepository logRepository;
+    private final TxExecutor txExecutor;
+    private final EntityManager em;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long maxWaitNanos;
+    private final int workers;
+    private final long resultTimeoutNanos;
+
+    private final BlockingQueue<JoinRequest> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    private long startedNanos;
+
+    private final Counter commits;
+    private final DistributionSummary batchSize;
+    private final Timer waitTimer;
+    private final Counter retried;
+
+    public MemberJoinBatcher(MemberService memberService, MemberRepository memberRepository,
+                             LogRepository logRepository, TxExecutor txExecutor, EntityManager em,
+                             MeterRegistry registry,
+                             @Value("${springtx.member.join-batch.enabled:false}") boolean enabled,
+                             @Value("${springtx.member.join-batch.max-size:64}") int maxSize,
+                             @Value("${springtx.member.join-batch.max-wait:2ms}") Duration maxWait,
+                             @Value("${springtx.member.join-batch.workers:2}") int workers,
+                             @Value("${springtx.member.join-batch.result-timeout:5s}") Duration resultTimeout) {
+        this.memberService = memberService;
+        this.memberRepository = memberRepository;
+        this.logRepository = logRepository;
+        this.txExecutor = txExecutor;
+        this.em = em;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.workers = workers;
+        this.resultTimeoutNanos = resultTimeout.toNanos();
+        this.commits = Counter.builder("springtx.member.join.batch.commits").register(registry);
+        this.batchSize = DistributionSummary.builder("springtx.member.join.batch.size").register(registry);
+        this.waitTimer = Timer.builder("springtx.member.join.batch.wait").register(registry);
+        this.retried = Counter.builder("springtx.member.join.batch.retried").register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        startedNanos = System.nanoTime();
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::work, "member-join-batch-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        log.info("회원 가입 배치 사용 maxSize={} maxWait={}us workers={}", maxSize, maxWaitNanos / 1_000, workers);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        // enqueue 와 같은 락으로 바꿔야 아래에서 큐를 비운 뒤에 요청이 들어오지 않는다.
+        synchronized (this) {
+            running = false;
+        }
+        // 작업 중인 스레드를 interrupt 하면 파일 DB 의 채널이 닫힐 수 있으므로 poll 이 끝나기를 기다린다.
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // 종료 중에 남은 요청도 버리지 않고 한 건씩 처리한다.
+        JoinRequest request;
+        while ((request = queue.poll()) != null) {
+            joinIndividually(request);
+        }
+    }
+
+    /**
+     * joinV1 과 같은 결과. 저장에 실패하면 그 요청의 예외를 그대로 던진다.
+     * 종료된 뒤에는 IllegalStateException 을 던진다.
+     * result-timeout 안에 결과가 없을 때 아직 배치에 실리지 않았으면 큐에서 빼고 직접 joinV1 을 호출하고,
+     * 이미 실렸으면 처리 여부를 알 수 없으므로 IllegalStateException 을 던진다.
+     */
+    public void join(String username) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            memberService.joinV1(username);
+            return;
+        }
+        JoinRequest request = new JoinRequest(username);
+        enqueue(request);
+        try {
+            request.result.get(resultTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            abandon(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(request);
+        }
+    }
+
+    private synchronized void enqueue(JoinRequest request) {
+        if (!running) {
+            throw new IllegalStateException("회원 가입 배치가 종료되어 요청을 받지 않습니다. username=" + request.username);
+        }
+        queue.add(request);
+    }
+
+    private void abandon(JoinRequest request) {
+        if (queue.remove(request)) {
+            memberService.joinV1(request.username);
+            return;
+        }
+        throw new IllegalStateException("회원 가입 배치 결과를 기다리지 못했습니다. 처리 여부를 알 수 없습니다. username="
+                + request.username);
+    }
+
+    /**
+     * 부하 테스트 리포트용 요약. 초당 커밋 수는 시작 이후 평균이다.
+     */
+    public String summary() {
+        if (!enabled) {
+            return "member join batch : disabled\n";
+        }
+        double seconds = Math.max(1, (System.nanoTime() - startedNanos) / 1e9);
+        return String.format("member join batch : commits=%.0f commits/s=%.1f batch size mean=%.1f max=%.0f"
+                        + " wait mean=%.3fms max=%.3fms retried=%.0f%n",
+                commits.count(), commits.count() / seconds, batchSize.mean(), batchSize.max(),
+                waitTimer.mean(TimeUnit.MILLISECONDS), waitTimer.max(TimeUnit.MILLISECONDS), retried.count());
+    }
+
+    private void work() {
+        List<JoinRequest> batch = new ArrayList<>(maxSize);
+        boolean interrupted = false;
+        while (running && !interrupted) {
+            try {
+                JoinRequest first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedNanos + maxWaitNanos;
+                while (batch.size() < maxSize) {
+                    long remaining = deadline - System.nanoTime();
+                    JoinRequest next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // 이미 모은 요청까지 처리하고 끝낸다. 남은 요청은 stop() 이 처리한다.
+                interrupted = true;
+            }
+            if (!batch.isEmpty()) {
+                execute(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void execute(List<JoinRequest> batch) {
+        long start = System.nanoTime();
+        for (JoinRequest request : batch) {
+            waitTimer.record(start - request.enqueuedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        List<JoinRequest> persisted;
+        try {
+            persisted = txExecutor.execute(BATCH, batch, this::persistAll);
+        } catch (RuntimeException e) {
+            log.warn("회원 가입 배치 커밋 실패. 한 건씩 다시 실행합니다. size={}", batch.size(), e);
+            for (JoinRequest request : batch) {
+                if (!request.result.isDone()) {
+                    retried.increment();
+                    joinIndividually(request);
+                }
+            }
+            return;
+        }
+        commits.increment();
+        batchSize.record(persisted.size());
+        persisted.forEach(request -> request.result.complete(null));
+    }
+
+    /**
+     * 실패할 요청은 회원도 persist 하기 전에 걸러내서 그 요청이 영속성 컨텍스트에 아무것도 남기지 않게 한다.
+     * (persist 한 엔티티를 detach 해도 이미 쌓인 INSERT 는 flush 때 실행된다.)
+     * 회원을 모두 persist 한 뒤 로그를 persist 해서, flush 때 같은 INSERT 끼리 이어져 배치로 나가게 한다.
+     */
+    private List<JoinRequest> persistAll(List<JoinRequest> batch) {
+        em.unwrap(Session.class).setJdbcBatchSize(batch.size());
+
+        List<JoinRequest> accepted = new ArrayList<>(batch.size());
+        List<Log> logs = new ArrayList<>(batch.size());
+        for (JoinRequest request : batch) {
+            Log logMessage = new Log(request.username);
+            try {
+                logRepository.check(logMessage);
+            } catch (RuntimeException e) {
+                request.result.completeExceptionally(e);
+                continue;
+            }
+            accepted.add(request);
+            logs.add(logMessage);
+        }
+
+        for (JoinRequest request : accepted) {
+            memberRepository.save(new Member(request.username));
+        }
+        for (Log logMessage : logs) {
+            logRepository.persist(logMessage);
+        }
+        return accepted;
+    }
+
+    private void joinIndividually(JoinRequest request) {
+        try {
+            txExecutor.run(SINGLE, () -> {
+                memberRepository.save(new Member(request.username));
+                logRepository.persist(new Log(request.username));
+            });
+            commits.increment();
+            request.result.complete(null);
+        } catch (RuntimeException e) {
+            request.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class JoinRequest {
+        private final String username;
+        private final long enqueuedNanos = System.nanoTime();
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        JoinRequest(String username) {
+            this.username = username;
+        }
+    }
+}
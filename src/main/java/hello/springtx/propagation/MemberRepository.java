@@ -1,11 +1,13 @@
 package hello.springtx.propagation;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -14,16 +16,50 @@ import java.util.Optional;
 public class MemberRepository {
 
     private final EntityManager em;
+    private final UsernameFilter usernameFilter;
 
         @Transactional
     public void save(Member member) {
         log.info("member 저장");
         em.persist(member);
+        usernameFilter.add(member.getUsername());
     }
 
     public Optional<Member> find(String username) {
-        return em.createQuery("select m from Member m where m.username = :username",
-                        Member.class)
-                .setParameter("username", username).getResultList().stream().findAny();
+        return findByUsername(username, em.createNamedQuery(Member.FIND_BY_USERNAME, Member.class));
+    }
+
+    /**
+     * 읽기 전용 엔티티 조회. 스냅샷을 남기지 않아 더티 체킹, flush 대상이 아니고 조회 전에 자동 flush 하지도 않는다.
+     * 값을 바꿔도 DB 에 반영되지 않는다. (이미 영속성 컨텍스트에 있는 엔티티는 그대로 반환된다.)
+     */
+    public Optional<Member> findReadOnly(String username) {
+        return findByUsername(username, ReadOnlyQueries.readOnly(em.createNamedQuery(Member.FIND_BY_USERNAME, Member.class)));
+    }
+
+    public Optional<MemberView> findView(String username) {
+        return findByUsername(username, ReadOnlyQueries.noFlush(em.createNamedQuery(Member.FIND_VIEW_BY_USERNAME, MemberView.class)));
+    }
+
+    /**
+     * id 가 after 보다 큰 회원을 id 순서로 limit 건. 마지막 id 를 다음 after 로 넘기면 된다. (keyset 페이징)
+     */
+    public List<MemberView> findViews(long after, int limit) {
+        return ReadOnlyQueries.noFlush(em.createNamedQuery(Member.FIND_VIEWS, MemberView.class))
+                .setParameter("after", after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private <T> Optional<T> findByUsername(String username, TypedQuery<T> query) {
+        // Bloom 필터가 확실히 없다고 하면 DB 를 조회하지 않는다.
+        if (!usernameFilter.mightExist(username)) {
+            return Optional.empty();
+        }
+        Optional<T> result = query.setParameter("username", username).getResultList().stream().findAny();
+        if (result.isEmpty()) {
+            usernameFilter.falsePositive();
+        }
+        return result;
     }
 }
@@ -0,0 +1,7 @@
+package hello.springtx.propagation;
+
+/**
+ * 조회 전용 회원 프로젝션. 영속성 컨텍스트에 올라가지 않는다.
+ */
+public record MemberView(Long id, String username) {
+}
@@ -0,0 +1,36 @@
+package hello.springtx.propagation;
+
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 조회 전용 쿼리 설정.
+ * readOnly 트랜잭션은 JpaTransactionManager(HibernateJpaDialect)가 세션 자체를 읽기 전용, FlushMode.MANUAL 로 연다.
+ */
+public final class ReadOnlyQueries {
+
+    private ReadOnlyQueries() {
+    }
+
+    /**
+     * 프로젝션 조회. 결과가 엔티티가 아니므로 flush 만 막는다.
+     * 읽기 전용 트랜잭션에서만 막는다. 읽기 쓰기 트랜잭션에서는 기본대로 조회 전에 flush 해서
+     * 같은 트랜잭션에서 방금 저장하거나 바꾼 내용도 조회 결과에 보인다.
+     */
+    public static <T> TypedQuery<T> noFlush(TypedQuery<T> query) {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            query.setFlushMode(FlushModeType.COMMIT);
+        }
+        return query;
+    }
+
+    /**
+     * 엔티티를 읽기 전용으로 올린다. 로딩 상태 스냅샷을 두지 않아 힙을 덜 쓰고 커밋 시 더티 체킹을 건너뛴다.
+     * 읽기 쓰기 트랜잭션에서도 조회 전에 자동 flush 하지 않는다. 아직 flush 되지 않은 변경은 보이지 않을 수 있다.
+     */
+    public static <T> TypedQuery<T> readOnly(TypedQuery<T> query) {
+        return query.setFlushMode(FlushModeType.COMMIT).setHint(HibernateHints.HINT_READ_ONLY, true);
+    }
+}
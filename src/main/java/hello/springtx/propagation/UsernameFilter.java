@@ -0,0 +1,109 @@
+package hello.springtx.propagation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * 가입된 username 의 Bloom 필터. MemberRepository.find 가 DB 를 조회하기 전에 확인해서,
+ * 확실히 없는 이름이면 쿼리를 건너뛴다.
+ *
+ * 저장(persist)할 때 바로 넣는다. 커밋 후에 넣으면 커밋과 등록 사이에 다른 트랜잭션이 조회할 때,
+ * 또 같은 트랜잭션 안에서 방금 저장한 회원을 조회할 때 없다고 잘못 답하게 된다.
+ * 롤백된 이름은 필터에 남아 오탐이 될 뿐 결과는 틀리지 않는다.
+ *
+ * 시작 시 member 테이블을 한 번 훑어 다시 만든다. 다 만들기 전에는 항상 DB 를 조회한다.
+ * 메트릭
+ * - springtx.member.bloom.fpp      : 추정 오탐률
+ * - springtx.member.bloom.bytes    : 비트 배열 크기
+ * - springtx.member.bloom.skipped  : 필터 덕분에 건너뛴 쿼리 수
+ * - springtx.member.bloom.false.positive : 필터는 있다고 했지만 DB 에 없던 횟수
+ */
+@Slf4j
+@Component
+public class UsernameFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final BloomFilter filter;
+    private final Counter skipped;
+    private final Counter falsePositives;
+    private volatile boolean ready;
+
+    public UsernameFilter(JdbcTemplate jdbcTemplate, MeterRegistry registry,
+                          @Value("${springtx.member.bloom.enabled:true}") boolean enabled,
+                          @Value("${springtx.member.bloom.expected-insertions:1000000}") long expectedInsertions,
+                          @Value("${springtx.member.bloom.fpp:0.01}") double fpp) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.filter = new BloomFilter(expectedInsertions, fpp);
+        this.skipped = Counter.builder("springtx.member.bloom.skipped").register(registry);
+        this.falsePositives = Counter.builder("springtx.member.bloom.false.positive").register(registry);
+        Gauge.builder("springtx.member.bloom.fpp", filter, BloomFilter::expectedFpp).register(registry);
+        Gauge.builder("springtx.member.bloom.bytes", filter, BloomFilter::sizeInBytes).register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long[] count = {0};
+        // fetchSize 만큼씩 읽어 회원 수와 상관없이 메모리를 일정하게 쓴다.
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement("select username from member");
+            statement.setFetchSize(1_000);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            String username = rs.getString(1);
+            if (username != null) {
+                filter.put(username);
+                count[0]++;
+            }
+        });
+        ready = true;
+        log.info("username Bloom 필터 생성 count={} bytes={} elapsed={}ms",
+                count[0], filter.sizeInBytes(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void add(String username) {
+        if (enabled && username != null) {
+            filter.put(username);
+        }
+    }
+
+    /**
+     * false 면 확실히 없는 이름이다. 필터를 쓰지 않거나 아직 준비되지 않았으면 true.
+     */
+    public boolean mightExist(String username) {
+        if (!enabled || !ready || username == null) {
+            return true;
+        }
+        if (filter.mightContain(username)) {
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    /**
+     * mightExist 가 true 였는데 DB 에 없을 때 부른다. 필터를 쓰지 않거나 준비 전이면 필터가 답한 게 아니므로 세지 않는다.
+     */
+    public void falsePositive() {
+        if (enabled && ready) {
+            falsePositives.increment();
+        }
+    }
+
+    public double skippedCount() {
+        return skipped.count();
+    }
+}
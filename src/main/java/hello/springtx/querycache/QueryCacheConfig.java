@@ -0,0 +1,38 @@
+package hello.springtx.querycache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QueryCacheConfig {
+
+    @Bean
+    StatementCacheJdbcListener statementCacheJdbcListener(ObjectProvider<StatementCacheMetrics> metrics) {
+        return new StatementCacheJdbcListener(metrics);
+    }
+
+    /**
+     * Hibernate 쿼리 플랜 캐시 적중/실패. springtx.hibernate.query.plan.cache{result=hit|miss}
+     * springtx.querycache.statistics=true 일 때만 등록한다. (hibernate.generate_statistics 도 같이 켜진다)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "springtx.querycache.statistics", havingValue = "true")
+    MeterBinder queryPlanCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            FunctionCounter.builder("springtx.hibernate.query.plan.cache", statistics,
+                            Statistics::getQueryPlanCacheHitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("springtx.hibernate.query.plan.cache", statistics,
+                            Statistics::getQueryPlanCacheMissCount)
+                    .tag("result", "miss").register(registry);
+        };
+    }
+}
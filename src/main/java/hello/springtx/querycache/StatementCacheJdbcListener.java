@@ -0,0 +1,35 @@
+package hello.springtx.querycache;
+
+import hello.springtx.jdbc.JdbcListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+
+import java.sql.Connection;
+
+/**
+ * prepareStatement, prepareCall 호출을 StatementCacheMetrics 에 알린다.
+ * 캐시는 물리 커넥션 기준이므로 커넥션을 빌릴 때 한 번만 찾아 둔다.
+ */
+class StatementCacheJdbcListener implements JdbcListener<StatementCacheMetrics.ConnectionCache>, Ordered {
+
+    private final ObjectProvider<StatementCacheMetrics> metrics;
+
+    StatementCacheJdbcListener(ObjectProvider<StatementCacheMetrics> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public StatementCacheMetrics.ConnectionCache acquired(Connection physicalConnection) {
+        return metrics.getObject().cacheOf(physicalConnection);
+    }
+
+    @Override
+    public void preparing(StatementCacheMetrics.ConnectionCache cache, String sql) {
+        cache.prepared(sql);
+    }
+
+    @Override
+    public int getOrder() {
+        return 200;
+    }
+}
@@ -0,0 +1,75 @@
+package hello.springtx.querycache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * JDBC prepared statement 캐시 적중/실패 추정치. springtx.jdbc.statement.cache.estimate{result=hit|miss}
+ * HikariCP 는 statement 캐시가 없고 H2 드라이버가 커넥션(세션)마다 QUERY_CACHE_SIZE 크기의 LRU 로 캐시한다.
+ * H2 는 캐시 통계를 제공하지 않으므로, 물리 커넥션마다 같은 크기의 LRU 를 따라 두고 적중 여부를 센다.
+ * H2 의 실제 캐시 값이 아니다. (H2 는 DDL 이 나가면 캐시를 비우는 등 이 LRU 와 다르게 동작할 수 있다)
+ * 캐시 크기를 바꿨을 때 적중률이 어떻게 변하는지 가늠하는 용도다.
+ */
+@Component
+public class StatementCacheMetrics {
+
+    static final String ESTIMATE = "springtx.jdbc.statement.cache.estimate";
+
+    private final int cacheSize;
+    private final Counter hits;
+    private final Counter misses;
+
+    // 물리 커넥션이 풀에서 제거되면 같이 사라지도록 약한 참조로 둔다.
+    private final Map<Connection, ConnectionCache> caches = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public StatementCacheMetrics(MeterRegistry registry,
+                                 @Value("${spring.datasource.hikari.data-source-properties.QUERY_CACHE_SIZE:8}") int cacheSize) {
+        this.cacheSize = cacheSize;
+        this.hits = Counter.builder(ESTIMATE).tag("result", "hit").register(registry);
+        this.misses = Counter.builder(ESTIMATE).tag("result", "miss").register(registry);
+    }
+
+    /**
+     * 물리 커넥션의 캐시. 커넥션을 빌린 동안 한 번만 찾아 두고 쓴다.
+     */
+    public ConnectionCache cacheOf(Connection physicalConnection) {
+        return caches.computeIfAbsent(physicalConnection, c -> new ConnectionCache());
+    }
+
+    public double estimatedHitCount() {
+        return hits.count();
+    }
+
+    public double estimatedMissCount() {
+        return misses.count();
+    }
+
+    /**
+     * 한 물리 커넥션의 LRU. 커넥션은 한 번에 한 스레드만 쓰므로 잠금 없이 쓴다.
+     */
+    public class ConnectionCache {
+
+        private final Map<String, Boolean> lru = new LinkedHashMap<>(cacheSize * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > cacheSize;
+            }
+        };
+
+        public void prepared(String sql) {
+            if (lru.put(sql, Boolean.TRUE) != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package hello.springtx.retention;
+
+import hello.springtx.propagation.LogView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * log 테이블을 날짜별 테이블로 나눠 관리한다. (H2 는 파티션 테이블을 지원하지 않아 테이블을 돌려 쓴다)
+ * - log               : 현재 파티션. JPA 엔티티 Log 가 쓰는 테이블. 새 로그는 항상 여기에 바로 쓴다.
+ * - log_pyyyyMMdd_n   : 지난 파티션. rotate 할 때 log 를 이름만 바꿔 만든다. 날짜는 파티션 안에서 가장 늦은 created_at 의 날짜다.
+ * 행을 복사하거나 지우지 않는다. 보관 기간은 파티션 테이블을 통째로 DROP 해서 관리한다.
+ * 테이블 생성, 이름 변경, 삭제(DDL)는 자동 커밋되므로 트랜잭션 밖에서 호출한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LogPartitions {
+
+    static final String PREFIX = "LOG_P";
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE; // yyyyMMdd
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * created_at 이 before 날짜 이전인 로그가 현재 log 테이블에 있으면 log 를 파티션으로 넘기고 빈 log 로 교체한다.
+     * 넘긴 파티션 이름을 돌려준다. 그런 로그가 없으면 아무것도 하지 않는다. (created_at 인덱스로 최솟값만 본다)
+     * <p>
+     * 새 테이블(log_next)을 미리 만들어 두고, 이름 바꾸기만 SET EXCLUSIVE 1 안에서 한다.
+     * 그동안 다른 커넥션의 문장은 실행 전에 멈췄다가 새 log 테이블에 실행되므로 log 테이블이 없는 순간을 보지 않는다.
+     * 이미 log 에 쓰고 아직 커밋하지 않은 트랜잭션이 있으면 이름 변경이 락을 기다리다 실패할 수 있다.
+     * 그때는 바꾼 이름을 되돌리고 예외를 던진다. 다음 실행에서 다시 넘긴다.
+     */
+    public Optional<String> rotate(LocalDate before) {
+        LocalDateTime oldest = jdbcTemplate.queryForObject("select min(created_at) from log", LocalDateTime.class);
+        if (oldest == null || !oldest.isBefore(before.atStartOfDay())) {
+            return Optional.empty();
+        }
+        createNext();
+        String partition = jdbcTemplate.execute((ConnectionCallback<String>) con -> {
+            try (Statement stmt = con.createStatement()) {
+                stmt.execute("set exclusive 1");
+                try {
+                    return swap(stmt);
+                } finally {
+                    stmt.execute("set exclusive 0");
+                }
+            }
+        });
+        log.info("log 파티션 교체 partition={}", partition);
+        return Optional.ofNullable(partition);
+    }
+
+    /**
+     * log 테이블(Log 엔티티)과 같은 컬럼, 기본 키, 인덱스로 만든다.
+     * CREATE TABLE ... AS SELECT 는 제약 조건과 기본값을 복사하지 않으므로 직접 정의한다.
+     */
+    private void createNext() {
+        jdbcTemplate.execute("drop table if exists log_next");
+        jdbcTemplate.execute("create table log_next"
+                + " (id bigint not null primary key, message varchar(255), created_at timestamp(6))");
+        jdbcTemplate.execute("create index idx_log_next_message on log_next (message)");
+        jdbcTemplate.execute("create index idx_log_next_created_at on log_next (created_at)");
+    }
+
+    // 다른 커넥션이 멈춰 있는 동안 실행한다. 파티션 이름은 이 안에서 정해야 마지막으로 커밋된 로그까지 반영된다.
+    private String swap(Statement stmt) throws SQLException {
+        LocalDateTime newest;
+        try (ResultSet rs = stmt.executeQuery("select max(created_at) from log")) {
+            rs.next();
+            newest = rs.getObject(1, LocalDateTime.class);
+        }
+        String partition = nextPartitionName(newest == null ? LocalDate.now() : newest.toLocalDate());
+        String suffix = partition.substring(PREFIX.length()).toLowerCase();
+
+        // 인덱스 이름은 스키마 안에서 유일해야 하므로 넘긴 파티션의 인덱스 이름을 바꾸고, log_next 의 인덱스를 원래 이름으로 바꾼다.
+        String[] forward = {
+                "alter table log rename to " + partition,
+                "alter index idx_log_message rename to idx_log_message_p" + suffix,
+                "alter index idx_log_created_at rename to idx_log_created_at_p" + suffix,
+                "alter table log_next rename to log",
+                "alter index idx_log_next_message rename to idx_log_message",
+                "alter index idx_log_next_created_at rename to idx_log_created_at",
+        };
+        String[] backward = {
+                "alter table " + partition + " rename to log",
+                "alter index idx_log_message_p" + suffix + " rename to idx_log_message",
+                "alter index idx_log_created_at_p" + suffix + " rename to idx_log_created_at",
+                "alter table log rename to log_next",
+                "alter index idx_log_message rename to idx_log_next_message",
+                "alter index idx_log_created_at rename to idx_log_next_created_at",
+        };
+        int done = 0;
+        try {
+            for (; done < forward.length; done++) {
+                stmt.execute(forward[done]);
+            }
+        } catch (SQLException e) {
+            for (int i = done - 1; i >= 0; i--) {
+                stmt.execute(backward[i]);
+            }
+            throw e;
+        }
+        return partition;
+    }
+
+    // 같은 날짜로 여러 번 넘기면 log_pyyyyMMdd_1, _2 ... 로 이어 붙인다.
+    private String nextPartitionName(LocalDate day) {
+        String prefix = PREFIX + day.format(DAY) + "_";
+        Long count = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.tables"
+                        + " where table_schema = current_schema and table_name like ?",
+                Long.class, prefix + "%");
+        return prefix + (count == null ? 1 : count + 1);
+    }
+
+    public void drop(String partition) {
+        if (!partition.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("log 파티션이 아닙니다. partition = " + partition);
+        }
+        log.info("log 파티션 삭제 partition={}", partition);
+        jdbcTemplate.execute("drop table " + partition);
+    }
+
+    /**
+     * 지난 날짜 파티션 이름 목록. 날짜 순으로 정렬된다.
+     */
+    public List<String> partitions() {
+        return jdbcTemplate.queryForList(
+                "select table_name from information_schema.tables"
+                        + " where table_schema = current_schema and table_name like ? order by table_name",
+                String.class, PREFIX + "%");
+    }
+
+    /**
+     * 보관 중인 파티션에서 message 로그를 최근 날짜부터 찾는다. 현재 log 테이블은 LogRepository.find 로 찾는다.
+     */
+    public Optional<LogView> find(String message) {
+        List<String> partitions = partitions();
+        for (int i = partitions.size() - 1; i >= 0; i--) {
+            List<LogView> found = jdbcTemplate.query(
+                    "select id, message, created_at from " + partitions.get(i) + " where message = ? limit 1",
+                    (rs, rowNum) -> new LogView(rs.getLong(1), rs.getString(2), rs.getObject(3, LocalDateTime.class)),
+                    message);
+            if (!found.isEmpty()) {
+                return Optional.of(found.get(0));
+            }
+        }
+        return Optional.empty();
+    }
+
+    // LOG_Pyyyymmdd_n 의 날짜
+    public LocalDate dayOf(String partition) {
+        return LocalDate.parse(partition.substring(PREFIX.length(), PREFIX.length() + 8), DAY);
+    }
+
+    public long countRows(String table) {
+        Long count = jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+        return count == null ? 0 : count;
+    }
+}
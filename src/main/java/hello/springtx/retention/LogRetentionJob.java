@@ -0,0 +1,78 @@
+package hello.springtx.retention;
+
+import hello.springtx.deadline.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 날짜가 바뀌면 log 테이블을 파티션으로 넘기고, 보관 기간이 지난 파티션을 통째로 삭제한다.
+ * 남은 행 수를 세느라 오래 걸릴 수 있는 배치 작업이라 기본 timeout(springtx.deadline.default-timeout)을 받지 않는다.
+ * 메트릭
+ * - springtx.log.retained.rows       : 정리 후 남은 로그 행 수 (현재 + 파티션)
+ * - springtx.log.partitions.dropped  : 삭제한 파티션 수
+ * - springtx.log.purge               : 정리 작업 소요 시간
+ */
+@Slf4j
+@Component
+public class LogRetentionJob {
+
+    private final LogPartitions logPartitions;
+    private final int retentionDays;
+    private final AtomicLong retainedRows = new AtomicLong();
+    private final Counter droppedPartitions;
+    private final Timer purgeTimer;
+
+    public LogRetentionJob(LogPartitions logPartitions, MeterRegistry registry,
+                           @Value("${springtx.log.retention.days:7}") int retentionDays) {
+        this.logPartitions = logPartitions;
+        this.retentionDays = retentionDays;
+        Gauge.builder("springtx.log.retained.rows", retainedRows, AtomicLong::get).register(registry);
+        this.droppedPartitions = Counter.builder("springtx.log.partitions.dropped").register(registry);
+        this.purgeTimer = Timer.builder("springtx.log.purge").register(registry);
+    }
+
+    @Scheduled(cron = "${springtx.log.retention.cron:0 5 0 * * *}")
+    public void purge() {
+        purge(LocalDate.now());
+    }
+
+    /**
+     * created_at 이 today 이전인 로그가 있으면 log 테이블을 파티션으로 넘기고, today - retentionDays 보다 오래된 파티션을 삭제한다.
+     * 파티션 날짜는 그 안에서 가장 늦은 created_at 이므로 보관 기간이 지나지 않은 로그는 삭제되지 않는다.
+     * 삭제한 파티션 수를 돌려준다.
+     */
+    public int purge(LocalDate today) {
+        return purgeTimer.record(() -> {
+            try (Deadline.Scope scope = Deadline.unbounded()) {
+                Optional<String> rotated = logPartitions.rotate(today);
+
+                LocalDate cutoff = today.minusDays(retentionDays);
+                int dropped = 0;
+                long retained = logPartitions.countRows("log");
+                for (String partition : logPartitions.partitions()) {
+                    if (logPartitions.dayOf(partition).isBefore(cutoff)) {
+                        logPartitions.drop(partition);
+                        dropped++;
+                    } else {
+                        retained += logPartitions.countRows(partition);
+                    }
+                }
+
+                droppedPartitions.increment(dropped);
+                retainedRows.set(retained);
+                log.info("log 보관 정리 완료 rotated={} dropped={} retained={}", rotated.orElse("-"), dropped, retained);
+                return dropped;
+            }
+        });
+    }
+}
@@ -0,0 +1,219 @@
+package hello.springtx.warmup;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderChangeFeed;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import hello.springtx.programmatic.TxDefinition;
+import hello.springtx.programmatic.TxExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 배포 직후 첫 요청이 커넥션 생성, 쿼리 준비, JIT 컴파일 비용을 내지 않도록 시작 시 미리 실행한다.
+ * ApplicationReadyEvent 리스너에서 동기로 실행하므로, 끝날 때까지 readiness 가 ACCEPTING_TRAFFIC 으로 바뀌지 않는다.
+ * (Boot 는 ApplicationReadyEvent 리스너가 모두 끝난 뒤 readiness 를 바꾼다.)
+ *
+ * 1. 커넥션 풀을 minimumIdle 만큼 채운다.
+ * 2. 저장소 조회와 MemberService, OrderService 트랜잭션을 돌리고 모두 롤백한다. DB 에는 아무것도 남지 않는다.
+ *    라운드(batch 회)마다 평균 지연을 재서 직전 라운드와 tolerance 이내로 두 번 연속 같아지면 멈춘다.
+ * 메트릭
+ * - springtx.warmup.duration   : 워밍업 소요 시간
+ * - springtx.warmup.iterations : 실행한 합성 트랜잭션 수
+ */
+@Slf4j
+@Component
+public class StartupWarmup {
+
+    // 로그 저장이 실패하도록 해서 joinV1 전체를 롤백시킨다. (LogRepository 는 REQUIRES_NEW 로 따로 커밋한다.)
+    private static final String WARMUP_USERNAME = "warmup_로그예외";
+    private static final TxDefinition ROLLBACK = TxDefinition.REQUIRED.named("StartupWarmup.rollback");
+    private static final int STABLE_ROUNDS = 2;
+
+    private final DataSource dataSource;
+    private final TxExecutor txExecutor;
+    private final MemberService memberService;
+    private final OrderService orderService;
+    private final MemberRepository memberRepository;
+    private final LogRepository logRepository;
+    private final OrderRepository orderRepository;
+    private final OrderChangeFeed orderChangeFeed;
+    private final boolean enabled;
+    private final int batch;
+    private final double tolerance;
+    private final Duration maxDuration;
+    private final AtomicReference<WarmupReport> lastReport = new AtomicReference<>();
+
+    public StartupWarmup(DataSource dataSource, TxExecutor txExecutor,
+                         MemberService memberService, OrderService orderService,
+                         MemberRepository memberRepository, LogRepository logRepository,
+                         OrderRepository orderRepository, OrderChangeFeed orderChangeFeed, MeterRegistry registry,
+                         @Value("${springtx.warmup.enabled:false}") boolean enabled,
+                         @Value("${springtx.warmup.batch:50}") int batch,
+                         @Value("${springtx.warmup.tolerance:0.1}") double tolerance,
+                         @Value("${springtx.warmup.max-duration:30s}") Duration maxDuration) {
+        this.dataSource = dataSource;
+        this.txExecutor = txExecutor;
+        this.memberService = memberService;
+        this.orderService = orderService;
+        this.memberRepository = memberRepository;
+        this.logRepository = logRepository;
+        this.orderRepository = orderRepository;
+        this.orderChangeFeed = orderChangeFeed;
+        this.enabled = enabled;
+        this.batch = batch;
+        this.tolerance = tolerance;
+        this.maxDuration = maxDuration;
+        TimeGauge.builder("springtx.warmup.duration", lastReport,
+                TimeUnit.MILLISECONDS, r -> r.get() == null ? 0 : r.get().elapsed().toMillis()).register(registry);
+        Gauge.builder("springtx.warmup.iterations", lastReport,
+                r -> r.get() == null ? 0 : r.get().iterations()).register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            warmUp(maxDuration);
+        } catch (RuntimeException e) {
+            // 워밍업 실패로 기동을 막지는 않는다.
+            log.warn("워밍업 실패. 그대로 기동합니다.", e);
+        }
+    }
+
+    public WarmupReport warmUp(Duration maxDuration) {
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+
+        int connections = fillPool();
+
+        int rounds = 0;
+        int stableRounds = 0;
+        long iterations = 0;
+        long first = 0;
+        long previous = 0;
+        long last = 0;
+        while (stableRounds < STABLE_ROUNDS && System.nanoTime() < deadline) {
+            long roundStart = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                iterate();
+            }
+            last = (System.nanoTime() - roundStart) / batch;
+            iterations += batch;
+            rounds++;
+            if (rounds == 1) {
+                first = last;
+            } else if (Math.abs(last - previous) <= previous * tolerance) {
+                stableRounds++;
+            } else {
+                stableRounds = 0;
+            }
+            log.debug("워밍업 라운드 {} 평균 {}us", rounds, last / 1_000);
+            previous = last;
+        }
+
+        WarmupReport report = new WarmupReport(Duration.ofNanos(System.nanoTime() - start), connections, rounds,
+                iterations, first, last, stableRounds >= STABLE_ROUNDS);
+        lastReport.set(report);
+        log.info("워밍업 완료 elapsed={}ms connections={} rounds={} iterations={} latency {}us -> {}us stable={}",
+                report.elapsed().toMillis(), connections, rounds, iterations, first / 1_000, last / 1_000, report.stable());
+        return report;
+    }
+
+    public WarmupReport lastReport() {
+        return lastReport.get();
+    }
+
+    // 풀이 백그라운드에서 채우기를 기다리지 않고 minimumIdle 개를 동시에 빌렸다가 돌려준다.
+    private int fillPool() {
+        int size = minimumIdle();
+        List<Connection> borrowed = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                borrowed.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            log.warn("커넥션 풀 채우기 실패 borrowed={}", borrowed.size(), e);
+        } finally {
+            for (Connection connection : borrowed) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.warn("커넥션 반환 실패", e);
+                }
+            }
+        }
+        return borrowed.size();
+    }
+
+    private int minimumIdle() {
+        try {
+            return dataSource.unwrap(HikariDataSource.class).getMinimumIdle();
+        } catch (SQLException e) {
+            return 1;
+        }
+    }
+
+    private void iterate() {
+        // 조회 : 엔티티, 프로젝션, 변경 피드
+        memberRepository.findViews(0, 1);
+        logRepository.find(WARMUP_USERNAME);
+        orderRepository.findViewsByPayStatus("대기", 0, PageRequest.ofSize(1));
+        orderChangeFeed.changesAfter(0, 1);
+
+        // 회원 가입 : 로그 저장 실패로 전체 롤백
+        try {
+            memberService.joinV1(WARMUP_USERNAME);
+        } catch (RuntimeException expected) {
+            // 의도한 롤백
+        }
+
+        // 주문 : 정상 승인 경로를 바깥 트랜잭션과 함께 롤백. 잔고 예약도 롤백 시 되돌려진다.
+        try {
+            txExecutor.run(ROLLBACK, () -> {
+                Order order = new Order();
+                order.setUserName("정상");
+                try {
+                    orderService.order(order);
+                } catch (NotEnoughMoneyException e) {
+                    // 잔고가 없어도 같은 경로를 거친다.
+                }
+                throw WarmupRollback.INSTANCE;
+            });
+        } catch (WarmupRollback expected) {
+            // 의도한 롤백
+        }
+    }
+
+    // 합성 트랜잭션을 롤백시키기 위한 예외. 스택을 채우지 않는다.
+    private static final class WarmupRollback extends RuntimeException {
+        static final WarmupRollback INSTANCE = new WarmupRollback();
+
+        private WarmupRollback() {
+            super("warmup rollback", null, false, false);
+        }
+    }
+}
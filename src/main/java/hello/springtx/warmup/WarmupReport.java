@@ -0,0 +1,10 @@
+package hello.springtx.warmup;
+
+import java.time.Duration;
+
+/**
+ * 워밍업 결과. stable 이 false 면 지연 시간이 안정되기 전에 최대 시간에 걸려 끝났다.
+ */
+public record WarmupReport(Duration elapsed, int connections, int rounds, long iterations,
+                           long firstRoundNanos, long lastRoundNanos, boolean stable) {
+}
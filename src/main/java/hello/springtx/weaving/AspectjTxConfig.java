@@ -0,0 +1,63 @@
+package hello.springtx.weaving;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.AdviceMode;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.aspectj.AnnotationTransactionAspect;
+import org.springframework.transaction.aspectj.JtaAnnotationTransactionAspect;
+
+import java.lang.reflect.Field;
+
+/**
+ * springtx.tx.mode=aspectj 이면 프록시 대신 컴파일 타임에 위빙된 트랜잭션 애스펙트를 사용한다.
+ * 프록시를 거치지 않으므로 내부 호출(this.internal())과 @PostConstruct 에도 트랜잭션이 적용된다.
+ * 이 설정이 있으면 스프링 부트의 프록시 방식 @EnableTransactionManagement 는 적용되지 않는다.
+ *
+ * 위빙은 ./gradlew build -PaspectjTx 로 빌드할 때만 main 클래스에 한다. (test, jmh 소스셋은 위빙하지 않는다. 결과는 build/aspectjTx)
+ * 위빙하지 않은 빌드에서 이 모드를 켜면 트랜잭션이 전혀 적용되지 않으므로 기동을 멈춘다.
+ * 위빙한 빌드를 프록시 모드로 실행하면 위빙된 advice 가 트랜잭션 매니저 없이 건너뛰는 비용이 더해진다. 위빙한 빌드는 aspectj 모드로 실행한다.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "springtx.tx.mode", havingValue = "aspectj")
+@EnableTransactionManagement(mode = AdviceMode.ASPECTJ)
+public class AspectjTxConfig {
+
+    public AspectjTxConfig() {
+        if (!isWoven(SelfInvocationService.class)) {
+            throw new IllegalStateException(
+                    "springtx.tx.mode=aspectj 이지만 클래스가 위빙되지 않았습니다. -PaspectjTx 로 빌드하세요.");
+        }
+    }
+
+    /**
+     * ajc 는 advice 가 붙은 클래스에 ajc$ 로 시작하는 static 필드(조인 포인트 정보)를 추가한다.
+     */
+    public static boolean isWoven(Class<?> type) {
+        for (Field field : type.getDeclaredFields()) {
+            if (field.getName().startsWith("ajc$")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 애스펙트는 JVM 에 하나뿐인 싱글톤이다. 컨텍스트가 닫힐 때 설정을 지워야
+     * 같은 JVM 의 다른 컨텍스트(테스트 컨텍스트 캐시 등)가 닫힌 컨텍스트의 트랜잭션 매니저를 쓰지 않는다.
+     */
+    @Bean
+    DisposableBean transactionAspectReset() {
+        return () -> {
+            log.info("트랜잭션 애스펙트 설정 초기화");
+            AnnotationTransactionAspect.aspectOf().setTransactionManager(null);
+            AnnotationTransactionAspect.aspectOf().setBeanFactory(null);
+            JtaAnnotationTransactionAspect.aspectOf().setTransactionManager(null);
+            JtaAnnotationTransactionAspect.aspectOf().setBeanFactory(null);
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package hello.springtx.weaving;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 프록시 모드에서는 트랜잭션이 적용되지 않는 호출(내부 호출, &#64;PostConstruct)을 모은 예제 빈.
+ * 위빙은 main 클래스에만 하므로 AspectjTxTest, TxAdviceBenchmark 가 위빙된 빈으로 쓰도록 여기 둔다.
+ * 컴포넌트 스캔 대상이 아니다. 쓰는 쪽에서 빈으로 등록한다.
+ */
+@Slf4j
+public class SelfInvocationService {
+
+    private boolean initTxActive;
+    private long count;
+
+    @PostConstruct
+    @Transactional
+    public void init() {
+        initTxActive = TransactionSynchronizationManager.isActualTransactionActive();
+        log.info("init @PostConstruct tx active = {}", initTxActive);
+    }
+
+    public boolean isInitTxActive() {
+        return initTxActive;
+    }
+
+    public boolean external() {
+        log.info("call external");
+        return internal();
+    }
+
+    @Transactional
+    public boolean internal() {
+        boolean txActive = TransactionSynchronizationManager.isActualTransactionActive();
+        log.info("call internal tx active = {}", txActive);
+        return txActive;
+    }
+
+    @Transactional
+    public long increment() {
+        return ++count;
+    }
+
+    public long incrementViaSelf() {
+        return increment();
+    }
+}
@@ -0,0 +1,3 @@
+-- "정상" 계좌는 충분한 잔고로 시작한다. "잔고부족" 계좌는 만들지 않는다. (잔고 0)
+insert into account (user_name, balance)
+select '정상', 1000000000000 where not exists (select 1 from account where user_name = '정상');
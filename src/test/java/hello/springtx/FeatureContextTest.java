@@ -0,0 +1,33 @@
+package hello.springtx;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextCustomizerFactories;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 기본값이 꺼져 있는 기능을 켠 공유 컨텍스트. SharedContextTest 와 같은 빈에 아래 설정만 다르다.
+ * 이 기능들을 테스트하는 클래스만 쓰고, 나머지 테스트는 기본 설정(SharedContextTest)으로 돈다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@SpringBootTest(classes = {SpringtxApplication.class, SharedTestBeans.class}, properties = {
+        // QueryCacheMetricsTest : 쿼리 플랜 캐시 메트릭
+        "springtx.querycache.statistics=true",
+        // LockWaitSamplerTest : 샘플링은 테스트가 직접 호출한다.
+        "springtx.lockwait.enabled=true",
+        "springtx.lockwait.sample-interval=3600000",
+        // MemberJoinBatcherTest : 동시 요청이 한 배치에 모이도록 넉넉히 기다린다.
+        "springtx.member.join-batch.enabled=true",
+        "springtx.member.join-batch.max-size=16",
+        "springtx.member.join-batch.max-wait=200ms",
+        "springtx.member.join-batch.workers=1",
+})
+@ContextCustomizerFactories(WorkerContextCustomizerFactory.class)
+public @interface FeatureContextTest {
+}
@@ -0,0 +1,25 @@
+package hello.springtx;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextCustomizerFactories;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 스프링 컨텍스트를 공유하는 통합 테스트.
+ * 테스트마다 중첩 @TestConfiguration 을 두면 컨텍스트 캐시 키가 달라져 클래스마다 컨텍스트를 새로 띄운다.
+ * 테스트용 빈은 SharedTestBeans 에 모아 두고 모든 테스트가 같은 설정을 쓰게 해서 워커마다 컨텍스트를 한 번만 띄운다.
+ * 트랜잭션 매니저를 바꾸는 등 설정이 다른 테스트(BasicTxTest, AspectjTxTest)는 그대로 @SpringBootTest 를 쓴다.
+ * 설정은 application.properties 기본값 그대로다. 기본값이 꺼져 있는 기능은 FeatureContextTest 로 테스트한다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@SpringBootTest(classes = {SpringtxApplication.class, SharedTestBeans.class})
+@ContextCustomizerFactories(WorkerContextCustomizerFactory.class)
+public @interface SharedContextTest {
+}
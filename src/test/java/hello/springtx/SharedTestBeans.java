@@ -0,0 +1,25 @@
+package hello.springtx;
+
+import hello.springtx.apply.InitTxTest;
+import hello.springtx.apply.InternalCallV1Test;
+import hello.springtx.apply.TxBasicTest;
+import hello.springtx.apply.TxLevelTest;
+import hello.springtx.deadline.DeadlineTest;
+import hello.springtx.exception.RollbackTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * 공유 컨텍스트(@SharedContextTest)에 올리는 테스트용 빈. 빈 정의는 각 테스트 클래스 안에 그대로 둔다.
+ */
+@TestConfiguration
+@Import({
+        InitTxTest.InitTxTestConfig.class,
+        InternalCallV1Test.InternalCallV2TestConfig.class,
+        TxBasicTest.TxApplyBasicConfig.class,
+        TxLevelTest.TxLevelTestConfig.class,
+        RollbackTest.RollbackTestConfig.class,
+        DeadlineTest.DeadlineTestConfig.class,
+})
+public class SharedTestBeans {
+}
@@ -1,9 +1,8 @@
 package hello.springtx;
 
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SharedContextTest
 class SpringtxApplicationTests {
 
 	@Test
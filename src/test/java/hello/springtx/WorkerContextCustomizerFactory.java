@@ -0,0 +1,32 @@
+package hello.springtx;
+
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ContextConfigurationAttributes;
+import org.springframework.test.context.ContextCustomizer;
+import org.springframework.test.context.ContextCustomizerFactory;
+import org.springframework.test.context.MergedContextConfiguration;
+
+import java.util.List;
+
+/**
+ * JUnit 병렬 실행 워커(스레드)마다 공유 컨텍스트를 따로 띄운다.
+ * 워커 이름을 컨텍스트 캐시 키에 넣어, 같은 설정이라도 다른 워커의 테스트 클래스는 다른 컨텍스트를 쓴다.
+ * 컨텍스트마다 인메모리 H2 DB 이름이 다르므로(spring.datasource.generate-unique-name) 워커끼리 DB 를 공유하지 않는다.
+ * 한 워커는 테스트 클래스를 하나씩 실행하므로 한 컨텍스트를 동시에 두 클래스가 쓰지 않는다.
+ */
+public class WorkerContextCustomizerFactory implements ContextCustomizerFactory {
+
+    @Override
+    public ContextCustomizer createContextCustomizer(Class<?> testClass, List<ContextConfigurationAttributes> configAttributes) {
+        return new WorkerContextCustomizer(Thread.currentThread().getName());
+    }
+
+    record WorkerContextCustomizer(String worker) implements ContextCustomizer {
+
+        @Override
+        public void customizeContext(ConfigurableApplicationContext context, MergedContextConfiguration mergedConfig) {
+            TestPropertyValues.of("springtx.test.worker=" + worker).applyTo(context);
+        }
+    }
+}
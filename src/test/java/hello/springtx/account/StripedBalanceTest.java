@@ -0,0 +1,63 @@
+package hello.springtx.account;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedBalanceTest {
+
+    @Test
+    void reserveAcrossStripes() {
+        // 잔고 10 을 4칸에 나누면 한 칸에는 3 이하. 합치면 예약 가능해야 한다.
+        StripedBalance balance = new StripedBalance(10, 4);
+
+        assertThat(balance.tryReserve(10)).isTrue();
+        assertThat(balance.available()).isZero();
+        assertThat(balance.tryReserve(1)).isFalse();
+    }
+
+    @Test
+    void releaseAndConfirm() {
+        StripedBalance balance = new StripedBalance(100, 4);
+        balance.tryReserve(30);
+        balance.tryReserve(20);
+
+        balance.release(30); // 롤백
+        balance.confirm(20); // 커밋
+
+        assertThat(balance.available()).isEqualTo(80);
+        assertThat(balance.drainUnflushed()).isEqualTo(20);
+        assertThat(balance.drainUnflushed()).isZero();
+    }
+
+    @Test
+    void concurrentReserveNeverOverdraws() throws InterruptedException {
+        // 잔고 1000 에 동시 요청 2000 건(각 1) : 정확히 1000 건만 성공해야 한다.
+        StripedBalance balance = new StripedBalance(1_000, 8);
+        AtomicInteger reserved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int i = 0; i < 2_000; i++) {
+            executor.submit(() -> {
+                start.await();
+                if (balance.tryReserve(1)) {
+                    reserved.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(reserved.get()).isEqualTo(1_000);
+        assertThat(balance.available()).isZero();
+    }
+}
@@ -0,0 +1,88 @@
+package hello.springtx.apply;
+
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import hello.springtx.weaving.AspectjTxConfig;
+import hello.springtx.weaving.SelfInvocationService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.config.TransactionManagementConfigUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * InternalCallV1Test, InitTxTest 와 같은 상황을 AspectJ 위빙 모드로 실행한다.
+ * 빈을 나누지 않아도 내부 호출과 @PostConstruct 에 트랜잭션이 적용된다.
+ * CallService/InternalService 는 test 클래스라 위빙하지 않으므로, 두 빈을 합친 SelfInvocationService(main)로 확인한다.
+ * 프로젝트의 트랜잭션 빈(MemberService 등)도 프록시 없이 위빙된 애스펙트로 트랜잭션이 적용된다.
+ * main 클래스가 위빙된 빌드(./gradlew aspectjTxTest)에서만 실행한다.
+ */
+@Slf4j
+@EnabledIf("woven")
+@SpringBootTest(properties = "springtx.tx.mode=aspectj")
+@DirtiesContext // 애스펙트 설정을 다른 테스트 컨텍스트와 공유하지 않도록 끝나면 닫는다.
+public class AspectjTxTest {
+
+    @Autowired
+    SelfInvocationService selfInvocationService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    static boolean woven() {
+        return AspectjTxConfig.isWoven(SelfInvocationService.class);
+    }
+
+    @Test
+    void noProxy() {
+        log.info("selfInvocationService class = {}", selfInvocationService.getClass());
+        assertThat(AopUtils.isAopProxy(selfInvocationService)).isFalse();
+    }
+
+    @Test
+    void internalCall() {
+        assertThat(selfInvocationService.external()).isTrue();
+    }
+
+    @Test
+    void postConstruct() {
+        assertThat(selfInvocationService.isInitTxActive()).isTrue();
+    }
+
+    /**
+     * joinV1 은 프록시 없이도 트랜잭션으로 묶인다. 로그 저장이 실패하면 회원 저장까지 롤백된다. (MemberServiceTest.outerTxOn_fail 과 같다)
+     */
+    @Test
+    void projectBeansWoven() {
+        assertThat(AspectjTxConfig.isWoven(MemberService.class)).isTrue();
+        assertThat(AopUtils.isAopProxy(memberService)).isFalse();
+
+        memberService.joinV1("aspectj_member");
+        assertThat(memberRepository.find("aspectj_member")).isPresent();
+
+        assertThatThrownBy(() -> memberService.joinV1("로그예외_aspectj_member")).isInstanceOf(RuntimeException.class);
+        assertThat(memberRepository.find("로그예외_aspectj_member")).isEmpty();
+    }
+
+    @TestConfiguration
+    static class AspectjTxTestConfig {
+        // @PostConstruct 시점에 애스펙트가 설정되어 있어야 한다.
+        @Bean
+        @DependsOn(TransactionManagementConfigUtils.TRANSACTION_ASPECT_BEAN_NAME)
+        SelfInvocationService selfInvocationService() {
+            return new SelfInvocationService();
+        }
+    }
+}
@@ -1,18 +1,17 @@
 package hello.springtx.apply;
 
+import hello.springtx.SharedContextTest;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.event.EventListener;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-@SpringBootTest
+@SharedContextTest
 public class InitTxTest {
 
     @Autowired
@@ -31,8 +30,8 @@ public class InitTxTest {
     }
 
 
-    @TestConfiguration
-    static class InitTxTestConfig {
+    // SharedTestBeans 가 import 한다. (공유 컨텍스트)
+    public static class InitTxTestConfig {
         @Bean
         Hello hello() {
             return new Hello();
@@ -1,17 +1,16 @@
 package hello.springtx.apply;
 
+import hello.springtx.SharedContextTest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Slf4j
-@SpringBootTest
+@SharedContextTest
 public class InternalCallV1Test {
 
     @Autowired
@@ -45,11 +44,12 @@ public class InternalCallV1Test {
     }
 */
 
-    @TestConfiguration
-    static class InternalCallV2TestConfig {
+    // SharedTestBeans 가 import 한다. (공유 컨텍스트)
+    public static class InternalCallV2TestConfig {
+        // 공유 컨텍스트에서는 lite 모드로 등록되므로 메서드 호출 대신 파라미터로 주입받는다.
         @Bean
-        CallService callService() {
-            return new CallService(internalService());
+        CallService callService(InternalService internalService) {
+            return new CallService(internalService);
         }
 
         @Bean
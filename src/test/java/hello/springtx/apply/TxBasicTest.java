@@ -1,24 +1,23 @@
 package hello.springtx.apply;
 
+import hello.springtx.SharedContextTest;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Slf4j
-@SpringBootTest
+@SharedContextTest
 public class TxBasicTest {
     @Autowired
     BasicService basicService;
 
-    @TestConfiguration
-    static class TxApplyBasicConfig {
+    // SharedTestBeans 가 import 한다. (공유 컨텍스트)
+    public static class TxApplyBasicConfig {
         @Bean
         BasicService basicService() {
             return new BasicService();
@@ -1,15 +1,14 @@
 package hello.springtx.apply;
 
+import hello.springtx.SharedContextTest;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-@SpringBootTest
+@SharedContextTest
 public class TxLevelTest {
 
     @Autowired
@@ -21,8 +20,8 @@ public class TxLevelTest {
         service.read();
     }
 
-    @TestConfiguration
-    static class TxLevelTestConfig {
+    // SharedTestBeans 가 import 한다. (공유 컨텍스트)
+    public static class TxLevelTestConfig {
         @Bean
         LevelService levelService() {
             return new LevelService();
@@ -0,0 +1,189 @@
+package hello.springtx.deadline;
+
+import hello.springtx.SharedContextTest;
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.ResourceTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SharedContextTest
+public class DeadlineTest {
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired SlowService slowService;
+    @Autowired DeadlineMetrics deadlineMetrics;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired DataSource dataSource;
+    @Autowired DeadlineJdbcListener deadlineJdbcListener;
+
+    @Test
+    void withinDeadline() {
+        String username = "deadline_within";
+
+        try (Deadline.Scope scope = Deadline.start(Duration.ofSeconds(5))) {
+            memberService.joinV1(username);
+        }
+
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+
+    @Test
+    void expiredBeforeStart() throws InterruptedException {
+        String username = "deadline_expired";
+        String method = "hello.springtx.propagation.MemberService.joinV1";
+        long before = deadlineMetrics.exceededCount(method);
+
+        try (Deadline.Scope scope = Deadline.start(Duration.ofMillis(10))) {
+            Thread.sleep(20);
+            assertThatThrownBy(() -> memberService.joinV1(username))
+                    .isInstanceOf(DeadlineExceededException.class);
+        }
+
+        assertThat(memberRepository.find(username)).isEmpty();
+        assertThat(deadlineMetrics.exceededCount(method)).isEqualTo(before + 1);
+    }
+
+    /**
+     * 바깥 트랜잭션이 시간을 다 써버리면 REQUIRES_NEW 내부 트랜잭션은 시작하지 않는다.
+     */
+    @Test
+    void innerRequiresNewFollowsDeadline() {
+        String method = "hello.springtx.propagation.LogRepository.save";
+        long before = deadlineMetrics.exceededCount(method);
+
+        try (Deadline.Scope scope = Deadline.start(Duration.ofMillis(200))) {
+            assertThatThrownBy(() -> slowService.slowThenLog("deadline_inner", 300))
+                    .isInstanceOf(DeadlineExceededException.class);
+        }
+
+        assertThat(deadlineMetrics.exceededCount(method)).isEqualTo(before + 1);
+    }
+
+    /**
+     * 마감 시각 안에서 실행하는 JDBC 문장은 남은 시간(초 단위 올림)을 query timeout 으로 받고, 끝나면 되돌린다.
+     */
+    @Test
+    void queryTimeoutFromDeadline() throws SQLException {
+        try (Connection con = dataSource.getConnection(); Statement stmt = con.createStatement()) {
+            DeadlineJdbcListener.Applied state = deadlineJdbcListener.acquired(con);
+            try (Deadline.Scope scope = Deadline.start(Duration.ofMillis(2500))) {
+                deadlineJdbcListener.executing(state, stmt);
+                assertThat(stmt.getQueryTimeout()).isEqualTo(3);
+            }
+            deadlineJdbcListener.executed(state, stmt);
+            assertThat(stmt.getQueryTimeout()).isZero();
+        }
+    }
+
+    /**
+     * 마감 시각을 넘겨 도는 문장은 DB 가 취소한다. timeout 이 초 단위라 500ms 예산이어도 최대 1초까지 돈다.
+     */
+    @Test
+    void slowStatementCancelled() {
+        // 트랜잭션 밖에서 실행한 문장은 method=none 으로 센다.
+        long before = deadlineMetrics.exceededCount("none");
+        long start = System.nanoTime();
+
+        try (Deadline.Scope scope = Deadline.start(Duration.ofMillis(500))) {
+            assertThatThrownBy(() -> jdbcTemplate.queryForObject("select sum(x) from system_range(1, 100000000000)", Long.class))
+                    .isInstanceOf(DataAccessException.class)
+                    .hasRootCauseInstanceOf(SQLTimeoutException.class);
+        }
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+        assertThat(deadlineMetrics.exceededCount("none")).isEqualTo(before + 1);
+
+        // 마감 시각 밖에서는 timeout 없이 실행된다. (H2 세션에 걸린 timeout 이 풀에 남지 않는다)
+        Integer timeout = jdbcTemplate.execute((StatementCallback<Integer>) Statement::getQueryTimeout);
+        assertThat(timeout).isZero();
+    }
+
+    @Test
+    void scopeRestored() {
+        try (Deadline.Scope outer = Deadline.start(Duration.ofSeconds(1))) {
+            Deadline deadline = Deadline.current();
+            try (Deadline.Scope inner = Deadline.start(Duration.ofSeconds(10))) {
+                // 더 이른 마감 시각을 따른다.
+                assertThat(Deadline.current()).isSameAs(deadline);
+            }
+            assertThat(Deadline.current()).isSameAs(deadline);
+        }
+        assertThat(Deadline.current()).isNull();
+    }
+
+    /**
+     * unbounded 구간은 바깥 마감 시각을 무시하고, 안에서 다시 시작한 마감 시각은 따른다.
+     */
+    @Test
+    void unboundedScope() {
+        try (Deadline.Scope outer = Deadline.start(Duration.ofSeconds(1))) {
+            Deadline deadline = Deadline.current();
+            try (Deadline.Scope unbounded = Deadline.unbounded()) {
+                assertThat(Deadline.current()).isNull();
+                assertThat(Deadline.isUnbounded()).isTrue();
+                try (Deadline.Scope inner = Deadline.start(Duration.ofSeconds(10))) {
+                    assertThat(Deadline.current()).isNotNull().isNotSameAs(deadline);
+                    assertThat(Deadline.isUnbounded()).isFalse();
+                }
+                assertThat(Deadline.isUnbounded()).isTrue();
+            }
+            assertThat(Deadline.current()).isSameAs(deadline);
+        }
+        assertThat(Deadline.isUnbounded()).isFalse();
+    }
+
+    /**
+     * 감싼 트랜잭션 매니저도 JpaTransactionManager 의 인터페이스를 그대로 가진다.
+     */
+    @Test
+    void txManagerKeepsInterfaces() {
+        assertThat(AopUtils.isAopProxy(txManager)).isTrue();
+        assertThat(txManager).isInstanceOf(ResourceTransactionManager.class);
+    }
+
+    // SharedTestBeans 가 import 한다. (공유 컨텍스트)
+    public static class DeadlineTestConfig {
+        @Bean
+        SlowService slowService(LogRepository logRepository) {
+            return new SlowService(logRepository);
+        }
+    }
+
+    @Slf4j
+    @RequiredArgsConstructor
+    static class SlowService {
+
+        private final LogRepository logRepository;
+
+        @Transactional
+        public void slowThenLog(String message, long sleepMillis) throws InterruptedException {
+            Thread.sleep(sleepMillis);
+            logRepository.save(new Log(message));
+        }
+    }
+}
@@ -1,16 +1,15 @@
 package hello.springtx.exception;
 
+import hello.springtx.SharedContextTest;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.transaction.annotation.Transactional;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
-@SpringBootTest
+@SharedContextTest
 public class RollbackTest {
 
     @Autowired
@@ -34,8 +33,8 @@ public class RollbackTest {
                 .isInstanceOf(MyException.class);
     }
 
-    @TestConfiguration
-    static class RollbackTestConfig {
+    // SharedTestBeans 가 import 한다. (공유 컨텍스트)
+    public static class RollbackTestConfig {
         @Bean
         RollbackService rollbackService() {
             return new RollbackService();
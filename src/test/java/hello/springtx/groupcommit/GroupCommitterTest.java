@@ -0,0 +1,75 @@
+package hello.springtx.groupcommit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroupCommitterTest {
+
+    @Test
+    void singleCommit() {
+        AtomicInteger syncs = new AtomicInteger();
+        GroupCommitter committer = new GroupCommitter(syncs::incrementAndGet, Duration.ZERO, 8, size -> {});
+
+        committer.awaitDurable();
+
+        assertThat(syncs.get()).isEqualTo(1);
+        assertThat(committer.durable()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentCommitsShareSync() throws Exception {
+        AtomicInteger syncs = new AtomicInteger();
+        GroupCommitter committer = new GroupCommitter(syncs::incrementAndGet, Duration.ofMillis(50), 32, size -> {});
+
+        runConcurrently(32, committer::awaitDurable);
+
+        assertThat(committer.durable()).isEqualTo(32);
+        assertThat(syncs.get()).isLessThan(32);
+    }
+
+    @Test
+    void failedSyncRetried() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        GroupCommitter committer = new GroupCommitter(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("sync 실패");
+            }
+        }, Duration.ZERO, 1, size -> {});
+
+        // 첫 동기화 실패는 리더에게 전달된다.
+        assertThatThrownBy(committer::awaitDurable).isInstanceOf(IllegalStateException.class);
+
+        // 다음 커밋의 동기화는 이전 번호표까지 함께 반영한다.
+        committer.awaitDurable();
+        assertThat(committer.durable()).isEqualTo(2);
+    }
+
+    private static void runConcurrently(int threads, Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+}
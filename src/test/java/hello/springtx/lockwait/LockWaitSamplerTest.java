@@ -0,0 +1,131 @@
+package hello.springtx.lockwait;
+
+import hello.springtx.FeatureContextTest;
+import hello.springtx.account.AccountRepository;
+import hello.springtx.programmatic.TxDefinition;
+import hello.springtx.programmatic.TxExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@FeatureContextTest
+class LockWaitSamplerTest {
+
+    private static final TxDefinition HOLDER = TxDefinition.REQUIRED.named("LockWaitSamplerTest.holder");
+    private static final TxDefinition WAITER = TxDefinition.REQUIRED.named("LockWaitSamplerTest.waiter");
+    private static final TxDefinition TIMEOUT = TxDefinition.REQUIRED.named("LockWaitSamplerTest.timeout");
+
+    @Autowired LockWaitSampler lockWaitSampler;
+    @Autowired AccountRepository accountRepository;
+    @Autowired TxExecutor txExecutor;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    /**
+     * 같은 계좌 행을 두 트랜잭션이 UPDATE 하면 뒤의 트랜잭션이 락을 기다린다.
+     * 샘플러는 기다리는 쪽과 막고 있는 쪽의 트랜잭션 이름을 알아야 한다.
+     */
+    @Test
+    void waitAttributedToMethod() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> txExecutor.run(HOLDER, () -> {
+            accountRepository.debit("정상", 0);
+            locked.countDown();
+            await(release);
+        }));
+        assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(
+                () -> txExecutor.run(WAITER, () -> accountRepository.debit("정상", 0)));
+
+        // H2 기본 락 타임아웃(2초) 안에 관찰되어야 한다.
+        Optional<LockWaitReport.MethodLockWaits> waits = Optional.empty();
+        for (int i = 0; i < 30 && waits.isEmpty(); i++) {
+            Thread.sleep(50);
+            lockWaitSampler.sample();
+            waits = find(WAITER.getName());
+        }
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        waiter.get(5, TimeUnit.SECONDS);
+        log.info("lock waits\n{}", lockWaitSampler.dump());
+
+        assertThat(waits).isPresent();
+        assertThat(waits.get().blockedBy()).containsKey(HOLDER.getName());
+        assertThat(waits.get().lastStatement()).containsIgnoringCase("update");
+        assertThat(waits.get().waitingThreads()).isNotEmpty().doesNotContainKey("unknown");
+        assertThat(waits.get().blockingThreads()).isNotEmpty().doesNotContainKey("unknown");
+        // 첫 샘플이라도 컨텍스트가 뜬 뒤 지난 시간 전체가 아니라 실제로 기다린 시간만 더한다.
+        assertThat(waits.get().estimatedWait()).isLessThanOrEqualTo(waits.get().maxWait());
+    }
+
+    /**
+     * 락 타임아웃으로 실패한 문장은 InstrumentedDataSource -> LockWaitJdbcListener 를 거쳐 그 메서드의 타임아웃으로 센다.
+     */
+    @Test
+    void lockTimeoutCountedThroughListener() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> txExecutor.run(HOLDER, () -> {
+            accountRepository.debit("정상", 0);
+            locked.countDown();
+            await(release);
+        }));
+        assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            assertThatThrownBy(() -> txExecutor.run(TIMEOUT, () -> {
+                // 락 타임아웃은 H2 세션 설정이라 풀에 돌아가기 전에 되돌린다.
+                Integer previous = jdbcTemplate.queryForObject("select lock_timeout()", Integer.class);
+                jdbcTemplate.execute("set lock_timeout 100");
+                try {
+                    accountRepository.debit("정상", 0);
+                } finally {
+                    jdbcTemplate.execute("set lock_timeout " + previous);
+                }
+            })).isInstanceOf(DataAccessException.class);
+        } finally {
+            release.countDown();
+        }
+        holder.get(5, TimeUnit.SECONDS);
+
+        LockWaitReport.MethodLockWaits timedOut = find(TIMEOUT.getName()).orElseThrow();
+        assertThat(timedOut.lockTimeouts()).isEqualTo(1);
+    }
+
+    @Test
+    void deadlockAndTimeoutCounted() {
+        lockWaitSampler.failed("LockWaitSamplerTest.victim", new SQLException("deadlock", "40001", LockWaitSampler.DEADLOCK));
+        lockWaitSampler.failed("LockWaitSamplerTest.victim", new SQLException("timeout", "HYT00", LockWaitSampler.LOCK_TIMEOUT));
+
+        LockWaitReport.MethodLockWaits victim = find("LockWaitSamplerTest.victim").orElseThrow();
+        assertThat(victim.deadlockVictims()).isEqualTo(1);
+        assertThat(victim.lockTimeouts()).isEqualTo(1);
+    }
+
+    private Optional<LockWaitReport.MethodLockWaits> find(String method) {
+        return lockWaitSampler.report().methods().stream()
+                .filter(m -> m.method().equals(method)
+                        && (m.waitSamples() > 0 || m.deadlockVictims() > 0 || m.lockTimeouts() > 0))
+                .findAny();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
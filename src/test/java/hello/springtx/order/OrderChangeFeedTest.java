@@ -0,0 +1,56 @@
+package hello.springtx.order;
+
+import hello.springtx.SharedContextTest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SharedContextTest
+class OrderChangeFeedTest {
+
+    @Autowired OrderService orderService;
+    @Autowired OrderChangeFeed orderChangeFeed;
+    @Autowired OrderChangeSequencer orderChangeSequencer;
+
+    @Test
+    void changesAfterWatermark() {
+        // Arrange : 지금까지의 변경은 건너뛴다.
+        long watermark = orderChangeSequencer.safeWatermark();
+
+        Order complete = order("정상");
+        Order waiting = order("잔고부족");
+        Order failed = order("예외"); // 롤백 : 피드에 나오지 않는다.
+        Order complete2 = order("정상");
+
+        // Act
+        OrderChangePage first = orderChangeFeed.changesAfter(watermark, 2);
+        OrderChangePage second = orderChangeFeed.changesAfter(first.nextWatermark(), 2);
+
+        // Assert
+        assertThat(first.changes()).extracting(OrderChange::id).containsExactly(complete.getId(), waiting.getId());
+        assertThat(first.changes()).extracting(OrderChange::payStatus).containsExactly("완료", "대기");
+        assertThat(first.hasMore()).isTrue();
+
+        assertThat(second.changes()).extracting(OrderChange::id).containsExactly(complete2.getId());
+        assertThat(second.hasMore()).isFalse();
+        assertThat(second.changes()).extracting(OrderChange::id).doesNotContain(failed.getId());
+
+        OrderChangePage empty = orderChangeFeed.changesAfter(second.nextWatermark(), 2);
+        assertThat(empty.changes()).isEmpty();
+        assertThat(empty.nextWatermark()).isEqualTo(second.nextWatermark());
+    }
+
+    private Order order(String userName) {
+        Order order = new Order();
+        order.setUserName(userName);
+        try {
+            orderService.order(order);
+        } catch (NotEnoughMoneyException | RuntimeException e) {
+            log.info("주문 예외 = {}", e.getMessage());
+        }
+        return order;
+    }
+}
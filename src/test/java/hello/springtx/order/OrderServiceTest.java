@@ -1,9 +1,9 @@
 package hello.springtx.order;
 
+import hello.springtx.SharedContextTest;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.context.SpringBootTest;
 
 import java.util.Optional;
 
@@ -11,7 +11,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @Slf4j
-@SpringBootTest
+@SharedContextTest
 class OrderServiceTest {
 
     @Autowired OrderService orderService;
@@ -73,4 +73,20 @@ class OrderServiceTest {
         Order findOrder = orderRepository.findById(order.getId()).get();
         assertThat(findOrder.getPayStatus()).isEqualTo("대기");
     }
-}
\ No newline at end of file
+
+    @Test
+    void bizException_amountOverBalance() {
+        // Arrange : 정상 계좌라도 잔고보다 큰 금액이면 잔고 부족
+        Order order = new Order();
+        order.setUserName("정상");
+        order.setAmount(Long.MAX_VALUE);
+
+        // Act
+        assertThatThrownBy(() -> orderService.order(order))
+                .isInstanceOf(NotEnoughMoneyException.class);
+
+        // Assert
+        Order findOrder = orderRepository.findById(order.getId()).get();
+        assertThat(findOrder.getPayStatus()).isEqualTo("대기");
+    }
+}
@@ -0,0 +1,120 @@
+package hello.springtx.order;
+
+import hello.springtx.SharedContextTest;
+import hello.springtx.programmatic.TxDefinition;
+import hello.springtx.programmatic.TxExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SharedContextTest
+class OrderStatusTransitionsTest {
+
+    @Autowired OrderStatusTransitions orderStatusTransitions;
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderChangeFeed orderChangeFeed;
+    @Autowired OrderChangeSequencer orderChangeSequencer;
+    @Autowired TxExecutor txExecutor;
+
+    @Test
+    void transitionRangeThenAll() {
+        // Arrange
+        String from = "벌크_대기";
+        String to = "벌크_완료";
+        List<Long> ids = orders(from, 5);
+        long watermark = orderChangeSequencer.safeWatermark();
+
+        // Act
+        int ranged = orderStatusTransitions.transition(from, to, ids.get(1), ids.get(3));
+        long rest = orderStatusTransitions.transitionAll(from, to, 1);
+
+        // Assert
+        assertThat(ranged).isEqualTo(3);
+        assertThat(rest).isEqualTo(2);
+        assertThat(orderRepository.findAllById(ids)).extracting(Order::getPayStatus).containsOnly(to);
+
+        OrderChangePage page = orderChangeFeed.changesAfter(watermark, 100);
+        assertThat(page.changes()).extracting(OrderChange::id).containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(page.changes()).extracting(OrderChange::changeSeq).doesNotHaveDuplicates();
+    }
+
+    /**
+     * 벌크 UPDATE 뒤에 다시 조회하면 이미 읽어 둔 엔티티가 아니라 바뀐 상태를 본다.
+     */
+    @Test
+    void persistenceContextRefreshed() {
+        String from = "벌크_컨텍스트_대기";
+        Long id = orders(from, 1).get(0);
+
+        String payStatus = txExecutor.execute(TxDefinition.REQUIRED, () -> {
+            orderRepository.findById(id).orElseThrow();
+            orderStatusTransitions.transition(from, "벌크_컨텍스트_완료", id, id);
+            return orderRepository.findById(id).orElseThrow().getPayStatus();
+        });
+
+        assertThat(payStatus).isEqualTo("벌크_컨텍스트_완료");
+    }
+
+    /**
+     * 변경 번호는 id 범위 크기가 아니라 바꾼 주문 수만큼만 쓴다.
+     */
+    @Test
+    void reservesOneSeqPerOrder() {
+        String from = "벌크_번호_대기";
+        Long first = orders(from, 1).get(0);
+        orders("벌크_번호_다른상태", 3);
+        Long last = orders(from, 1).get(0);
+        long watermark = orderChangeSequencer.safeWatermark();
+
+        int updated = orderStatusTransitions.transition(from, "벌크_번호_완료", first, last);
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(orderChangeSequencer.safeWatermark()).isEqualTo(watermark + 2);
+        assertThat(orderRepository.findAllById(List.of(first, last))).extracting(Order::getChangeSeq)
+                .containsExactlyInAnyOrder(watermark + 1, watermark + 2);
+    }
+
+    /**
+     * 같은 트랜잭션에서 track 으로 등록한 주문은 벌크 전환 뒤에도 관리 상태라 커밋할 때 변경 번호를 받는다.
+     */
+    @Test
+    void trackedOrderKeepsChangeSeq() {
+        String from = "벌크_추적_대기";
+        Long bulkId = orders(from, 1).get(0);
+
+        Long trackedId = txExecutor.execute(TxDefinition.REQUIRED, () -> {
+            Order tracked = new Order();
+            tracked.setUserName("정상");
+            tracked.setPayStatus("벌크_추적");
+            orderRepository.save(tracked);
+            orderChangeSequencer.track(tracked);
+            orderStatusTransitions.transition(from, "벌크_추적_완료", bulkId, bulkId);
+            return tracked.getId();
+        });
+
+        assertThat(orderRepository.findById(trackedId).orElseThrow().getChangeSeq()).isNotNull();
+    }
+
+    @Test
+    void nothingToTransition() {
+        assertThat(orderStatusTransitions.transition("벌크_없음", "벌크_완료", 0, Long.MAX_VALUE)).isZero();
+        assertThat(orderStatusTransitions.transitionAll("벌크_없음", "벌크_완료", 10)).isZero();
+    }
+
+    private List<Long> orders(String payStatus, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setUserName("정상");
+            order.setPayStatus(payStatus);
+            ids.add(orderRepository.save(order).getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,60 @@
+package hello.springtx.programmatic;
+
+import hello.springtx.SharedContextTest;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SharedContextTest
+class TxExecutorTest {
+
+    @Autowired TxExecutor txExecutor;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    void definitionCached() {
+        TxDefinition definition = TxDefinition.of(Propagation.REQUIRED, Isolation.DEFAULT, true, TransactionDefinition.TIMEOUT_DEFAULT);
+
+        assertThat(definition).isSameAs(TxDefinition.READ_ONLY);
+        assertThat(TxDefinition.of(Propagation.REQUIRED, Isolation.DEFAULT, true, 5)).isNotSameAs(definition);
+    }
+
+    @Test
+    void commit() {
+        String username = "txExecutor_commit";
+
+        txExecutor.run(TxDefinition.REQUIRED, () -> memberRepository.save(new Member(username)));
+
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+
+    @Test
+    void rollback() {
+        String username = "txExecutor_rollback";
+
+        assertThatThrownBy(() -> txExecutor.run(TxDefinition.REQUIRED, () -> {
+            memberRepository.save(new Member(username));
+            throw new IllegalStateException("롤백");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(memberRepository.find(username)).isEmpty();
+    }
+
+    @Test
+    void readOnly() {
+        Boolean readOnly = txExecutor.execute(TxDefinition.READ_ONLY,
+                TransactionSynchronizationManager::isCurrentTransactionReadOnly);
+
+        assertThat(readOnly).isTrue();
+    }
+}
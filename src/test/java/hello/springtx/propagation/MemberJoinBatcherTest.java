@@ -0,0 +1,113 @@
+package hello.springtx.propagation;
+
+import hello.springtx.FeatureContextTest;
+import hello.springtx.programmatic.TxExecutor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@FeatureContextTest
+class MemberJoinBatcherTest {
+
+    @Autowired MemberJoinBatcher memberJoinBatcher;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired UsernameFilter usernameFilter;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired MemberService memberService;
+    @Autowired TxExecutor txExecutor;
+    @Autowired EntityManager em;
+
+    /**
+     * 동시에 들어온 가입은 한 트랜잭션에 묶이고, 로그예외인 요청만 실패한다. (joinV1 과 같은 결과)
+     */
+    @Test
+    void batchedJoinsIsolateFailures() throws Exception {
+        List<String> usernames = List.of("batch_1", "batch_2", "로그예외_batch_3", "batch_4", "batch_5", "로그예외_batch_6");
+        DistributionSummary batchSize = meterRegistry.get("springtx.member.join.batch.size").summary();
+        long batchesBefore = batchSize.count();
+        double joinedBefore = batchSize.totalAmount();
+        double retriedBefore = meterRegistry.get("springtx.member.join.batch.retried").counter().count();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(usernames.size());
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (String username : usernames) {
+            results.add(CompletableFuture.runAsync(() -> {
+                await(start);
+                memberJoinBatcher.join(username);
+            }, executor));
+        }
+        start.countDown();
+        for (CompletableFuture<Void> result : results) {
+            result.handle((ok, e) -> null).get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        log.info("{}", memberJoinBatcher.summary());
+
+        for (int i = 0; i < usernames.size(); i++) {
+            String username = usernames.get(i);
+            if (username.contains("로그예외")) {
+                assertThat(results.get(i)).isCompletedExceptionally();
+                assertThat(memberRepository.find(username)).isEmpty();
+                assertThat(logRepository.find(username)).isEmpty();
+            } else {
+                assertThat(results.get(i)).isCompletedWithValue(null);
+                assertThat(memberRepository.find(username)).isPresent();
+                assertThat(logRepository.find(username)).isPresent();
+                assertThat(usernameFilter.mightExist(username)).isTrue();
+            }
+        }
+        // 성공한 4건이 한 배치로 커밋되었다. 실패한 요청 때문에 한 건씩 다시 실행하지 않았다.
+        assertThat(batchSize.count() - batchesBefore).isEqualTo(1);
+        assertThat(batchSize.totalAmount() - joinedBefore).isEqualTo(4);
+        assertThat(meterRegistry.get("springtx.member.join.batch.retried").counter().count()).isEqualTo(retriedBefore);
+    }
+
+    @Test
+    void singleJoin() {
+        memberJoinBatcher.join("batch_single");
+
+        assertThat(memberRepository.find("batch_single")).isPresent();
+    }
+
+    /**
+     * 종료된 뒤에 들어온 요청은 큐에 쌓지 않고 바로 거절한다. (기다리다 멈추지 않는다)
+     */
+    @Test
+    void rejectedAfterStop() throws InterruptedException {
+        MemberJoinBatcher batcher = new MemberJoinBatcher(memberService, memberRepository, logRepository, txExecutor, em,
+                new SimpleMeterRegistry(), true, 16, Duration.ofMillis(10), 1, Duration.ofSeconds(1));
+        batcher.start();
+        batcher.join("batch_before_stop");
+        batcher.stop();
+
+        assertThatThrownBy(() -> batcher.join("batch_after_stop")).isInstanceOf(IllegalStateException.class);
+        assertThat(memberRepository.find("batch_before_stop")).isPresent();
+        assertThat(memberRepository.find("batch_after_stop")).isEmpty();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
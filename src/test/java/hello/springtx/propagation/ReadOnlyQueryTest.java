@@ -0,0 +1,101 @@
+package hello.springtx.propagation;
+
+import hello.springtx.SharedContextTest;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderView;
+import hello.springtx.programmatic.TxDefinition;
+import hello.springtx.programmatic.TxExecutor;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SharedContextTest
+class ReadOnlyQueryTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired OrderRepository orderRepository;
+    @Autowired TxExecutor txExecutor;
+    @Autowired EntityManager em;
+
+    /**
+     * readOnly 트랜잭션은 세션 자체가 읽기 전용이고 flush 하지 않는다.
+     */
+    @Test
+    void readOnlyTransactionUsesReadOnlySession() {
+        txExecutor.run(TxDefinition.READ_ONLY, () -> {
+            Session session = em.unwrap(Session.class);
+            assertThat(session.isDefaultReadOnly()).isTrue();
+            assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.MANUAL);
+        });
+    }
+
+    /**
+     * 읽기 쓰기 트랜잭션에서도 읽기 전용으로 조회한 엔티티는 바꿔도 반영되지 않는다.
+     */
+    @Test
+    void readOnlyEntityNotFlushed() {
+        String username = "readOnly_entity";
+        memberRepository.save(new Member(username));
+
+        txExecutor.run(TxDefinition.REQUIRED, () -> {
+            Member member = memberRepository.findReadOnly(username).orElseThrow();
+            assertThat(em.unwrap(Session.class).isReadOnly(member)).isTrue();
+            member.setUsername("readOnly_changed");
+        });
+
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+
+    /**
+     * 읽기 쓰기 트랜잭션에서는 프로젝션 조회도 먼저 flush 하므로 방금 저장한 회원, 로그가 보인다.
+     */
+    @Test
+    void projectionSeesUnflushedChangesInReadWriteTransaction() {
+        String name = "readOnly_unflushed";
+
+        txExecutor.run(TxDefinition.REQUIRED, () -> {
+            memberRepository.save(new Member(name));
+            logRepository.persist(new Log(name));
+
+            MemberView member = memberRepository.findView(name).orElseThrow();
+            assertThat(memberRepository.findViews(member.id() - 1, 1)).containsExactly(member);
+            LogView logView = logRepository.findView(name).orElseThrow();
+            assertThat(logRepository.findViews(logView.id() - 1, 1)).containsExactly(logView);
+        });
+    }
+
+    @Test
+    void projections() {
+        String name = "readOnly_view";
+        memberRepository.save(new Member(name));
+        logRepository.save(new Log(name));
+        Order order = new Order();
+        order.setUserName(name);
+        order.setPayStatus(name);
+        orderRepository.save(order);
+
+        MemberView member = memberRepository.findView(name).orElseThrow();
+        assertThat(member.username()).isEqualTo(name);
+        assertThat(memberRepository.findViews(member.id() - 1, 1)).containsExactly(member);
+
+        LogView logView = logRepository.findView(name).orElseThrow();
+        assertThat(logView.createdAt()).isNotNull();
+        assertThat(logRepository.findViews(logView.id() - 1, 1)).containsExactly(logView);
+
+        List<OrderView> orders = orderRepository.findViewsByPayStatus(name, 0, PageRequest.ofSize(10));
+        assertThat(orders).extracting(OrderView::id).containsExactly(order.getId());
+        assertThat(orderRepository.findReadOnlyByPayStatus(name, 0, PageRequest.ofSize(10)))
+                .extracting(Order::getId).containsExactly(order.getId());
+    }
+}
@@ -0,0 +1,90 @@
+package hello.springtx.propagation;
+
+import hello.springtx.SharedContextTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SharedContextTest
+class UsernameFilterTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberService memberService;
+    @Autowired UsernameFilter usernameFilter;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void missingUsernameSkipsQuery() {
+        double before = usernameFilter.skippedCount();
+
+        assertThat(memberRepository.find("bloom_없는이름")).isEmpty();
+
+        assertThat(usernameFilter.skippedCount()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void joinedUsernameFound() {
+        String username = "bloom_join";
+
+        memberService.joinV1(username);
+
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+
+    /**
+     * 같은 트랜잭션 안에서 방금 저장한 회원도 찾을 수 있어야 한다.
+     */
+    @Test
+    @Transactional
+    void sameTransaction() {
+        String username = "bloom_same_tx";
+
+        memberRepository.save(new Member(username));
+
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+
+    /**
+     * 필터가 꺼져 있거나 준비 전이면 DB 에 없어도 오탐으로 세지 않는다.
+     */
+    @Test
+    void falsePositiveCountedOnlyWhenReady() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UsernameFilter disabled = new UsernameFilter(jdbcTemplate, registry, false, 1_000, 0.01);
+        disabled.falsePositive();
+        assertThat(registry.get("springtx.member.bloom.false.positive").counter().count()).isZero();
+
+        registry = new SimpleMeterRegistry();
+        UsernameFilter filter = new UsernameFilter(jdbcTemplate, registry, true, 1_000, 0.01);
+        filter.falsePositive();
+        assertThat(registry.get("springtx.member.bloom.false.positive").counter().count()).isZero();
+
+        filter.rebuild();
+        filter.falsePositive();
+        assertThat(registry.get("springtx.member.bloom.false.positive").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void bloomFilterNoFalseNegative() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i)).isTrue();
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        log.info("false positives = {}, expectedFpp = {}", falsePositives, filter.expectedFpp());
+        assertThat(falsePositives).isLessThan(300); // 목표 1%, 여유 있게 3%
+    }
+}
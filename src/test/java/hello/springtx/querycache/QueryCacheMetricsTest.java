@@ -0,0 +1,65 @@
+package hello.springtx.querycache;
+
+import hello.springtx.FeatureContextTest;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@FeatureContextTest
+class QueryCacheMetricsTest {
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired StatementCacheMetrics statementCacheMetrics;
+    @Autowired MeterRegistry meterRegistry;
+
+    /**
+     * 한 커넥션에서 같은 쿼리를 반복하면 두 번째부터는 statement 캐시 적중으로 추정한다.
+     */
+    @Test
+    @Transactional
+    void statementCacheHit() {
+        // 없는 이름은 Bloom 필터가 쿼리를 건너뛰므로 먼저 저장해 둔다.
+        memberRepository.save(new Member("queryCache_1"));
+        memberRepository.save(new Member("queryCache_2"));
+        memberRepository.save(new Member("queryCache_3"));
+
+        memberRepository.find("queryCache_1");
+        double hitsBefore = statementCacheMetrics.estimatedHitCount();
+
+        memberRepository.find("queryCache_2");
+        memberRepository.find("queryCache_3");
+
+        assertThat(statementCacheMetrics.estimatedHitCount()).isGreaterThanOrEqualTo(hitsBefore + 2);
+    }
+
+    /**
+     * 같은 이름 있는 쿼리를 두 번 실행하면 두 번째는 쿼리 플랜 캐시에서 찾는다.
+     * FeatureContextTest 가 springtx.querycache.statistics=true 로 띄운다.
+     */
+    @Test
+    void queryPlanCacheHit() {
+        // 없는 이름은 Bloom 필터가 쿼리를 건너뛰므로 먼저 저장해 둔다.
+        memberRepository.save(new Member("queryCache_plan"));
+
+        FunctionCounter hit = meterRegistry.find("springtx.hibernate.query.plan.cache").tag("result", "hit").functionCounter();
+        FunctionCounter miss = meterRegistry.find("springtx.hibernate.query.plan.cache").tag("result", "miss").functionCounter();
+        assertThat(hit).isNotNull();
+        assertThat(miss).isNotNull();
+
+        assertThat(memberRepository.find("queryCache_plan")).isPresent();
+        double hitsBefore = hit.count();
+
+        assertThat(memberRepository.find("queryCache_plan")).isPresent();
+
+        log.info("query plan cache hit={} miss={}", hit.count(), miss.count());
+        assertThat(hit.count()).isGreaterThan(hitsBefore);
+    }
+}
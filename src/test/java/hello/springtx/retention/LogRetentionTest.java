@@ -0,0 +1,99 @@
+package hello.springtx.retention;
+
+import hello.springtx.SharedContextTest;
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.LogView;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SharedContextTest
+class LogRetentionTest {
+
+    @Autowired LogRetentionJob logRetentionJob;
+    @Autowired LogPartitions logPartitions;
+    @Autowired LogRepository logRepository;
+
+    @Test
+    void rotateThenDrop() {
+        LocalDate today = LocalDate.now();
+        List<String> before = logPartitions.partitions();
+
+        // 어제 만든 로그가 있으면 log 테이블을 통째로 넘긴다. 파티션 날짜는 가장 늦은 created_at(지금)의 날짜다.
+        LocalDateTime yesterday = today.minusDays(1).atTime(23, 59);
+        logRepository.save(logAt("retention_old", yesterday));
+        logRepository.save(new Log("retention_now"));
+        logRetentionJob.purge(today);
+
+        List<String> rotated = logPartitions.partitions();
+        assertThat(rotated).hasSize(before.size() + 1);
+        String partition = rotated.get(rotated.size() - 1);
+        assertThat(logPartitions.dayOf(partition)).isEqualTo(today);
+        assertThat(logRepository.find("retention_old")).isEmpty(); // 현재 log 테이블에는 없다.
+        assertThat(logPartitions.find("retention_old")).map(LogView::createdAt).hasValue(yesterday);
+        assertThat(logPartitions.find("retention_now")).isPresent();
+
+        // 새 log 테이블에 계속 저장된다. 오늘 만든 로그만 있으면 넘기지 않는다.
+        logRepository.save(new Log("retention_new"));
+        assertThat(logRepository.find("retention_new")).isPresent();
+        assertThat(logRetentionJob.purge(today)).isZero();
+        assertThat(logPartitions.partitions()).isEqualTo(rotated);
+
+        // 보관 기간(7일)이 지나면 파티션을 테이블째 삭제한다. 이번에 넘긴 파티션(retention_new)도 같이 지워진다.
+        int dropped = logRetentionJob.purge(today.plusDays(8));
+
+        assertThat(dropped).isEqualTo(before.size() + 2);
+        assertThat(logPartitions.partitions()).isEmpty();
+        assertThat(logPartitions.find("retention_old")).isEmpty();
+        assertThat(logRepository.find("retention_new")).isEmpty();
+    }
+
+    @Test
+    void rotateWhileWriting() throws Exception {
+        LocalDate today = LocalDate.now();
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<CompletableFuture<List<String>>> writers = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            String prefix = "retention_concurrent_" + t + "_";
+            writers.add(CompletableFuture.supplyAsync(() -> {
+                List<String> saved = new ArrayList<>();
+                for (int i = 0; running.get() || i < 20; i++) {
+                    logRepository.save(new Log(prefix + i));
+                    saved.add(prefix + i);
+                }
+                return saved;
+            }));
+        }
+
+        // 쓰는 중에 log 테이블을 여러 번 교체해도 저장이 실패하지 않는다.
+        for (int i = 0; i < 3; i++) {
+            logRepository.save(logAt("retention_concurrent_old", today.minusDays(1).atStartOfDay()));
+            assertThat(logPartitions.rotate(today)).isPresent();
+        }
+        running.set(false);
+
+        for (CompletableFuture<List<String>> writer : writers) {
+            for (String message : writer.get()) {
+                assertThat(logRepository.find(message).isPresent() || logPartitions.find(message).isPresent())
+                        .as(message).isTrue();
+            }
+        }
+    }
+
+    private static Log logAt(String message, LocalDateTime createdAt) {
+        Log log = new Log(message);
+        log.setCreatedAt(createdAt);
+        return log;
+    }
+}
@@ -0,0 +1,91 @@
+package hello.springtx.warmup;
+
+import hello.springtx.SharedContextTest;
+import hello.springtx.SpringtxApplication;
+import hello.springtx.account.BalanceReservations;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SharedContextTest
+class StartupWarmupTest {
+
+    @Autowired StartupWarmup startupWarmup;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired BalanceReservations balanceReservations;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    /**
+     * 테스트 컨텍스트는 워밍업을 끄고 시작하므로 직접 실행한다. 합성 트랜잭션은 모두 롤백되어야 한다.
+     * 주문, 변경 번호, 가용 잔고도 워밍업 전과 같아야 한다.
+     */
+    @Test
+    void warmUpRollsBack() {
+        long orders = count("select count(*) from orders");
+        long changeSeq = count("select coalesce(max(change_seq), 0) from orders");
+        long available = balanceReservations.available("정상");
+
+        WarmupReport report = startupWarmup.warmUp(Duration.ofSeconds(2));
+        log.info("warmup report = {}", report);
+
+        assertThat(report.connections()).isPositive();
+        assertThat(report.iterations()).isPositive();
+        assertThat(startupWarmup.lastReport()).isEqualTo(report);
+
+        assertThat(memberRepository.find("warmup_로그예외")).isEmpty();
+        assertThat(logRepository.find("warmup_로그예외")).isEmpty();
+        assertThat(count("select count(*) from orders")).isEqualTo(orders);
+        assertThat(count("select coalesce(max(change_seq), 0) from orders")).isEqualTo(changeSeq);
+        assertThat(balanceReservations.available("정상")).isEqualTo(available);
+    }
+
+    /**
+     * 워밍업을 켜고 띄우면 onReady 가 끝난 뒤에야 readiness 가 ACCEPTING_TRAFFIC 이 된다.
+     * ACCEPTING_TRAFFIC 이벤트를 받는 시점에 워밍업 결과가 이미 있어야 한다.
+     */
+    @Test
+    void readinessAfterWarmUp() {
+        AtomicReference<WarmupReport> reportWhenAccepting = new AtomicReference<>();
+        // 람다는 제네릭 이벤트 타입을 알 수 없어 모든 이벤트를 받으므로 직접 거른다.
+        ApplicationListener<ApplicationEvent> listener = event -> {
+            if (event instanceof AvailabilityChangeEvent<?> change && change.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                ApplicationContext source = (ApplicationContext) change.getSource();
+                reportWhenAccepting.set(source.getBean(StartupWarmup.class).lastReport());
+            }
+        };
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringtxApplication.class)
+                .web(WebApplicationType.NONE)
+                .listeners(listener)
+                .run("--springtx.warmup.enabled=true",
+                        "--springtx.warmup.batch=5",
+                        "--springtx.warmup.max-duration=1s")) {
+            WarmupReport report = context.getBean(StartupWarmup.class).lastReport();
+            assertThat(report).isNotNull();
+            assertThat(reportWhenAccepting.get()).isSameAs(report);
+        }
+    }
+
+    private long count(String sql) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class);
+        return count == null ? 0 : count;
+    }
+}